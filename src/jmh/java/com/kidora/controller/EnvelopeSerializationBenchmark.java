@@ -0,0 +1,80 @@
+package com.kidora.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kidora.dto.cart.CartItemResponse;
+import com.kidora.dto.order.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the {"success": .., "data": ..} envelopes the controllers return, with the
+ * ObjectMapper configured the way Spring Boot configures it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnvelopeSerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private Map<String, Object> orderEnvelope;
+    private Map<String, Object> orderPageEnvelope;
+    private Map<String, Object> cartEnvelope;
+    private Map<String, Object> errorEnvelope;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                        SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+        OrderResponse order = OrderController.convertToOrderResponse(ResponseFixtures.order(), null);
+        List<OrderResponse> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(order);
+        }
+        List<CartItemResponse> cart = ResponseFixtures.cart(8).stream().map(CartController::toResponse).toList();
+        orderEnvelope = Map.of("success", true, "data", order);
+        orderPageEnvelope = Map.of("success", true, "data", page);
+        cartEnvelope = Map.of("success", true, "data", cart);
+        errorEnvelope = Map.of("success", false, "message", "Product not found: 42");
+    }
+
+    @Benchmark
+    public byte[] order() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(orderEnvelope);
+    }
+
+    @Benchmark
+    public byte[] orderPage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(orderPageEnvelope);
+    }
+
+    @Benchmark
+    public byte[] cart() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(cartEnvelope);
+    }
+
+    @Benchmark
+    public byte[] error() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(errorEnvelope);
+    }
+}
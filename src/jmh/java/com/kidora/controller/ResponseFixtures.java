@@ -0,0 +1,86 @@
+package com.kidora.controller;
+
+import com.kidora.entity.CartItem;
+import com.kidora.entity.Order;
+import com.kidora.entity.OrderItem;
+import com.kidora.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Entities shaped like production rows, shared by the response-mapping benchmarks
+final class ResponseFixtures {
+
+    private ResponseFixtures() {
+    }
+
+    static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("Cotton Kids T-Shirt " + id);
+        product.setPrice(new BigDecimal("650.00"));
+        product.setDiscount(id % 2 == 0 ? 10 : 0);
+        product.setCategory("boys");
+        product.setRating(4.5);
+        product.setMainImage("http://localhost:8080/uploads/products/ab/cd/" + "a".repeat(64) + ".jpg");
+        return product;
+    }
+
+    // A shipped order with three lines: three of five tracking steps timestamped
+    static Order order() {
+        LocalDateTime placed = LocalDateTime.of(2024, 5, 1, 10, 15);
+        Order order = new Order();
+        order.setId(42L);
+        order.setOrderNumber("KD-1714558500000-7");
+        order.setStatus(Order.OrderStatus.SHIPPED);
+        order.setPaymentMethod(Order.PaymentMethod.COD);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setShippingName("Ayesha Rahman");
+        order.setShippingPhone("01700000000");
+        order.setShippingAddress("House 12, Road 5, Dhanmondi");
+        order.setShippingCity("Dhaka");
+        order.setShippingPostalCode("1205");
+        order.setCreatedAt(placed);
+        order.setUpdatedAt(placed.plusDays(1));
+        order.setProcessingTime(placed);
+        order.setPackedTime(placed.plusHours(5));
+        order.setShippedTime(placed.plusDays(1));
+        List<OrderItem> items = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (long i = 1; i <= 3; i++) {
+            Product product = product(i);
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductTitle(product.getTitle());
+            item.setProductImage(product.getMainImage());
+            item.setQuantity((int) i);
+            item.setSelectedSize("M");
+            item.setUnitPrice(product.getDiscountedPrice());
+            item.setTotalPrice(product.getDiscountedPrice().multiply(BigDecimal.valueOf(i)));
+            subtotal = subtotal.add(item.getTotalPrice());
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        order.setSubtotal(subtotal);
+        order.setShippingCost(new BigDecimal("60.00"));
+        order.setTotalAmount(subtotal.add(order.getShippingCost()));
+        return order;
+    }
+
+    static List<CartItem> cart(int lines) {
+        List<CartItem> cart = new ArrayList<>(lines);
+        for (long i = 1; i <= lines; i++) {
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setProduct(product(i));
+            item.setSelectedSize("S");
+            item.setQuantity(1);
+            cart.add(item);
+        }
+        return cart;
+    }
+}
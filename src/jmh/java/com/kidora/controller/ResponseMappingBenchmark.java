@@ -0,0 +1,75 @@
+package com.kidora.controller;
+
+import com.kidora.dto.cart.CartItemResponse;
+import com.kidora.dto.order.OrderResponse;
+import com.kidora.entity.CartItem;
+import com.kidora.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of the order and cart endpoints, including the tracking steps, plus the cost of
+ * compiling the "HH:mm" pattern per response (what convertToOrderResponse used to do) vs. reusing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private Order order;
+    private List<CartItem> cart;
+    private LocalDateTime time;
+
+    @Setup
+    public void setUp() {
+        order = ResponseFixtures.order();
+        cart = ResponseFixtures.cart(8);
+        time = order.getShippedTime();
+    }
+
+    @Benchmark
+    public OrderResponse orderResponse() {
+        return OrderController.convertToOrderResponse(order, null);
+    }
+
+    @Benchmark
+    public void cartResponse(Blackhole bh) {
+        for (CartItem item : cart) {
+            bh.consume(CartController.toResponse(item));
+        }
+    }
+
+    @Benchmark
+    public CartItemResponse cartLine() {
+        return CartController.toResponse(cart.get(0));
+    }
+
+    @Benchmark
+    public String formatterPerCall() {
+        return time.format(DateTimeFormatter.ofPattern("HH:mm"));
+    }
+
+    @Benchmark
+    public String sharedFormatter() {
+        return time.format(TIME_FORMAT);
+    }
+}
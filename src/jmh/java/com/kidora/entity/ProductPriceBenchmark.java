@@ -0,0 +1,53 @@
+package com.kidora.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product.getDiscountedPrice, called for every product card, cart line and order line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductPriceBenchmark {
+
+    private Product discounted;
+    private Product fullPrice;
+
+    @Setup
+    public void setUp() {
+        discounted = product(new BigDecimal("1250.00"), 15);
+        fullPrice = product(new BigDecimal("990.00"), 0);
+    }
+
+    @Benchmark
+    public BigDecimal discountedPrice() {
+        return discounted.getDiscountedPrice();
+    }
+
+    @Benchmark
+    public BigDecimal undiscountedPrice() {
+        return fullPrice.getDiscountedPrice();
+    }
+
+    private static Product product(BigDecimal price, int discount) {
+        Product product = new Product();
+        product.setPrice(price);
+        product.setDiscount(discount);
+        return product;
+    }
+}
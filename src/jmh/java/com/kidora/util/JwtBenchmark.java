@@ -0,0 +1,72 @@
+package com.kidora.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification cost per request: the old path (key derived and parser built on every call,
+ * three parses per authenticated request) against the prebuilt parser with a single verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "kidoraSecretKeyForJWTTokenGenerationAndValidation2024";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 86_400_000L);
+        token = jwtUtil.generateToken("bench@kidora.test", "USER");
+    }
+
+    // One parse the way JwtUtil used to do it
+    @Benchmark
+    public Claims legacyParse() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    // Old filter: extractUsername, then validateToken (extractUsername + extractExpiration)
+    @Benchmark
+    public void legacyFilterPath(Blackhole bh) {
+        bh.consume(legacyParse().getSubject());
+        bh.consume(legacyParse().getSubject());
+        bh.consume(legacyParse().getExpiration().before(new Date()));
+    }
+
+    // Issued on every login and OTP verification
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("bench@kidora.test", "USER");
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtUtil.verify(token);
+    }
+}
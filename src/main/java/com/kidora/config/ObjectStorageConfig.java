@@ -0,0 +1,68 @@
+package com.kidora.config;
+
+import com.kidora.service.LocalFileObjectStorage;
+import com.kidora.service.ObjectStorage;
+import com.kidora.service.S3ObjectStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * storage.backend=local (default) keeps uploads under file.local-upload-dir, which only works with a
+ * single app node; storage.backend=s3 keeps them in a bucket every node shares (AWS S3, or MinIO via
+ * storage.s3.endpoint with path-style access).
+ */
+@Configuration
+public class ObjectStorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+    public ObjectStorage localFileObjectStorage(@Value("${file.local-upload-dir}") String uploadDir) throws IOException {
+        return new LocalFileObjectStorage(uploadDir);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public S3Client s3Client(@Value("${storage.s3.region:us-east-1}") String region,
+                             @Value("${storage.s3.endpoint:}") String endpoint,
+                             @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                             @Value("${storage.s3.access-key:}") String accessKey,
+                             @Value("${storage.s3.secret-key:}") String secretKey) {
+        AwsCredentialsProvider credentials = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public ObjectStorage s3ObjectStorage(S3Client s3Client,
+                                         @Value("${storage.s3.bucket}") String bucket,
+                                         @Value("${storage.s3.key-prefix:products/}") String keyPrefix,
+                                         @Value("${storage.s3.part-size:8388608}") int partSize,
+                                         @Value("${storage.s3.create-bucket:false}") boolean createBucket) {
+        S3ObjectStorage storage = new S3ObjectStorage(s3Client, bucket, keyPrefix, partSize);
+        if (createBucket) {
+            storage.createBucketIfMissing();
+        }
+        return storage;
+    }
+}
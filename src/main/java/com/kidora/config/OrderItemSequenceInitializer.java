@@ -0,0 +1,37 @@
+package com.kidora.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * order_items moved from IDENTITY to a pooled sequence. Hibernate creates order_items_seq starting at 1,
+ * which would collide with rows written under IDENTITY, so lift it above the current max id at startup.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderItemSequenceInitializer {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbc;
+
+    @PostConstruct
+    public void alignSequence() {
+        try {
+            Long value = jdbc.queryForObject(
+                    "SELECT setval('order_items_seq', GREATEST(" +
+                            "(SELECT COALESCE(MAX(id), 0) FROM order_items) + ?, " +
+                            "(SELECT last_value FROM order_items_seq)))",
+                    Long.class, ALLOCATION_SIZE);
+            log.info("order_items_seq aligned at {}", value);
+        } catch (Exception e) {
+            log.error("Failed to align order_items_seq with existing order items", e);
+        }
+    }
+}
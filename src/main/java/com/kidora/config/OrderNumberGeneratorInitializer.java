@@ -0,0 +1,43 @@
+package com.kidora.config;
+
+import com.kidora.service.SnowflakeOrderNumberGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The order number generator keeps its last millisecond in memory and may have run ahead of the wall clock
+ * before a restart, so start it above the highest stored order number. Numbers from before the generator
+ * were "ORD-" + 13 decimal milliseconds; read as base32 they sort above every generated number until 2032,
+ * so they are left out. The comparison is bytewise (COLLATE "C") so string order stays id order.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderNumberGeneratorInitializer {
+
+    private final JdbcTemplate jdbc;
+    private final SnowflakeOrderNumberGenerator generator;
+
+    @PostConstruct
+    public void seedFromOrders() {
+        try {
+            String highest = jdbc.queryForObject(
+                    "SELECT order_number FROM orders " +
+                            "WHERE order_number ~ '^ORD-[0-9A-Z]{13}$' AND order_number !~ '^ORD-1[0-9]{12}$' " +
+                            "ORDER BY order_number COLLATE \"C\" DESC LIMIT 1",
+                    String.class);
+            generator.advancePast(SnowflakeOrderNumberGenerator.parse(highest));
+            log.info("Order numbers continue after {}", highest);
+        } catch (EmptyResultDataAccessException e) {
+            log.info("No generated order numbers stored yet");
+        } catch (Exception e) {
+            log.error("Failed to seed the order number generator from existing orders", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.kidora.config;
+
+import com.kidora.repository.OtpRepository;
+import com.kidora.service.InMemoryOtpStore;
+import com.kidora.service.JpaOtpStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * otp.store=memory (default) keeps codes in process, optionally writing behind to the otps table
+ * (otp.store.write-behind=true, required when several nodes serve /api/auth); otp.store=database
+ * uses the table directly.
+ */
+@Configuration
+public class OtpStoreConfig {
+
+    @Bean
+    public JpaOtpStore jpaOtpStore(OtpRepository otpRepository) {
+        return new JpaOtpStore(otpRepository);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+    public InMemoryOtpStore inMemoryOtpStore(JpaOtpStore jpaOtpStore,
+                                             @Value("${otp.store.shards:16}") int shards,
+                                             @Value("${otp.store.tick:1000}") long tickMillis,
+                                             @Value("${otp.store.max-entries:100000}") int maxEntries,
+                                             @Value("${otp.store.write-behind:false}") boolean writeBehind) {
+        return new InMemoryOtpStore(shards, tickMillis, maxEntries, jpaOtpStore, writeBehind);
+    }
+}
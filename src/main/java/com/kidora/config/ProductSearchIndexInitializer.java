@@ -0,0 +1,45 @@
+package com.kidora.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the full-text search column on products.
+ * search_vector is a STORED generated column, so Postgres keeps it in sync on every insert/update
+ * without any application code; Hibernate (ddl-auto=update) cannot declare it, so we add it at startup.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexInitializer {
+
+    private final JdbcTemplate jdbc;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    public void ensureSearchIndex() {
+        try {
+            jdbc.execute("ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('simple'::regconfig, coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple'::regconfig, coalesce(category, '')), 'B') || " +
+                    "setweight(to_tsvector('simple'::regconfig, coalesce(description, '')), 'C')" +
+                    ") STORED");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)");
+            available = true;
+            log.info("Product full-text search index is ready.");
+        } catch (Exception e) {
+            log.error("Failed to prepare product full-text search index; falling back to LIKE search", e);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
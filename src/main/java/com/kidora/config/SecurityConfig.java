@@ -3,6 +3,7 @@ package com.kidora.config;
 import com.kidora.security.JwtAuthenticationEntryPoint;
 import com.kidora.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -27,6 +28,12 @@ public class SecurityConfig {
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${server.port:8080}")
+    private String serverPort;
+
+    @Value("${management.server.port:}")
+    private String managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -40,6 +47,12 @@ public class SecurityConfig {
                 auth.requestMatchers("/api/categories/**").permitAll();
                 auth.requestMatchers("/api/hero-banners/**").permitAll();
                 auth.requestMatchers("/uploads/**").permitAll();
+                // Scrapers carry no JWT, so the scrape is only open when actuator has a listener of its own
+                auth.requestMatchers("/actuator/health").permitAll();
+                if (separateManagementPort()) {
+                    auth.requestMatchers("/actuator/prometheus").permitAll();
+                }
+                auth.requestMatchers("/actuator/**").hasRole("ADMIN");
 
                 auth.requestMatchers("/api/admin/users/**").hasRole("ADMIN");
                 auth.requestMatchers("/api/admin/**").hasAnyRole("ADMIN","SUB_ADMIN");
@@ -55,6 +68,10 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private boolean separateManagementPort() {
+        return !managementPort.isBlank() && !managementPort.equals(serverPort);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,55 @@
+package com.kidora.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the Hibernate statement count of each request as kidora.http.server.statements, tagged with
+ * method and route like http.server.requests, so an N+1 shows up against its endpoint. Runs ahead of
+ * the security chain so the JWT user lookup is counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        StatementCountingInspector.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = StatementCountingInspector.end();
+            DistributionSummary.builder("kidora.http.server.statements")
+                    .description("Hibernate SQL statements per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri(request))
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(500.0)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+
+    // Matched route template; unmatched paths share one value to keep the tag bounded
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -2,8 +2,19 @@ package com.kidora.controller;
 
 import com.kidora.dto.order.OrderResponse;
 import com.kidora.entity.Order;
+import com.kidora.service.DashboardRollupService;
+import com.kidora.service.EmailDispatcher;
+import com.kidora.service.ImageVariantService;
+import com.kidora.service.LocalObjectStorageService;
+import com.kidora.service.UploadGarbageCollector;
+import com.kidora.service.OrderReadService;
+import com.kidora.service.OtpRateLimiter;
 import com.kidora.service.OrderService;
+import com.kidora.service.ProductCatalogCache;
+import com.kidora.util.KeysetCursor;
+import com.kidora.service.UserPrincipalCache;
 import com.kidora.service.UserService;
+import com.kidora.service.VirtualThreadPinningMonitor;
 import com.kidora.entity.ReturnRequest;
 import com.kidora.repository.ReturnRequestRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,11 +22,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -29,9 +42,22 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasAnyRole('ADMIN','SUB_ADMIN')")
 public class AdminController {
     
+    // Upper bound for size on the order cursor listing
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final OrderService orderService;
+    private final OrderReadService orderReadService;
     private final UserService userService;
     private final ReturnRequestRepository returnRequestRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final DashboardRollupService dashboardRollupService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final OtpRateLimiter otpRateLimiter;
+    private final EmailDispatcher emailDispatcher;
+    private final LocalObjectStorageService localObjectStorageService;
+    private final ImageVariantService imageVariantService;
+    private final UploadGarbageCollector uploadGarbageCollector;
+    private final VirtualThreadPinningMonitor virtualThreadPinningMonitor;
     
     @GetMapping("/dashboard/stats")
     public ResponseEntity<?> getDashboardStats() {
@@ -70,8 +96,9 @@ public class AdminController {
             long itemsSold7d = orderService.getItemsSoldLastNDays(7);
             var revenueTrend = orderService.getRevenueTrendLastNDays(7);
             var topProducts = orderService.getTopProducts(5);
-            long returnsPending = returnRequestRepository.findAll().stream().filter(r->r.getStatus()==com.kidora.entity.ReturnRequest.Status.PENDING).count();
-            long returnsApproved = returnRequestRepository.findAll().stream().filter(r->r.getStatus()==com.kidora.entity.ReturnRequest.Status.APPROVED).count();
+            Map<String, Long> returns = orderReadService.returnStatusHistogram();
+            long returnsPending = returns.get(ReturnRequest.Status.PENDING.name());
+            long returnsApproved = returns.get(ReturnRequest.Status.APPROVED.name());
 
             var data = Map.of(
                 "totalRevenue", totalRevenue,
@@ -88,17 +115,126 @@ public class AdminController {
         }
     }
     
+    @GetMapping("/orders/histogram")
+    public ResponseEntity<?> getOrderStatusHistogram() {
+        try {
+            return ResponseEntity.ok(Map.of("success", true, "data", orderReadService.orderStatusHistogram()));
+        } catch (Exception e) {
+            log.error("Error fetching order status histogram", e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/returns/histogram")
+    public ResponseEntity<?> getReturnStatusHistogram() {
+        try {
+            return ResponseEntity.ok(Map.of("success", true, "data", orderReadService.returnStatusHistogram()));
+        } catch (Exception e) {
+            log.error("Error fetching return status histogram", e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
+    // Recount the dashboard rollups from orders (also runs nightly)
+    @PostMapping("/dashboard/rollups/rebuild")
+    public ResponseEntity<?> rebuildDashboardRollups() {
+        try {
+            dashboardRollupService.rebuild();
+            return ResponseEntity.ok(Map.of("success", true, "message", "Dashboard rollups rebuilt"));
+        } catch (Exception e) {
+            log.error("Error rebuilding dashboard rollups", e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
+    // Catalog cache counters, used to size catalog.cache.max-weight
+    @GetMapping("/cache/catalog")
+    public ResponseEntity<?> getCatalogCacheStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", productCatalogCache.stats()));
+    }
+    
+    // Allowed/rejected counters of the OTP endpoint rate limits
+    @GetMapping("/rate-limits")
+    public ResponseEntity<?> getRateLimitStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", otpRateLimiter.stats()));
+    }
+    
+    // Outbox backlog, delivery counters and queue latency
+    @GetMapping("/email/outbox")
+    public ResponseEntity<?> getEmailOutboxStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", emailDispatcher.stats()));
+    }
+    
+    // Upload store: objects written vs. uploads deduplicated by content hash
+    @GetMapping("/storage")
+    public ResponseEntity<?> getStorageStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", localObjectStorageService.stats()));
+    }
+    
+    @GetMapping("/storage/gc")
+    public ResponseEntity<?> getUploadGcStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", uploadGarbageCollector.stats()));
+    }
+    
+    // Manual collector run; a full pass covers every shard. Dry run unless dryRun=false. Deletes files, so ADMIN only
+    @PostMapping("/storage/gc/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runUploadGc(@RequestParam(defaultValue = "true") boolean dryRun,
+                                        @RequestParam(defaultValue = "false") boolean fullPass) {
+        var result = uploadGarbageCollector.run(dryRun, fullPass ? Integer.MAX_VALUE : 16);
+        return ResponseEntity.ok(Map.of("success", true, "data", result));
+    }
+    
+    // Queues thumbnail/card/detail rendering for products that have none yet
+    @PostMapping("/products/image-variants/backfill")
+    public ResponseEntity<?> backfillImageVariants() {
+        int queued = imageVariantService.backfill();
+        return ResponseEntity.ok(Map.of("success", true, "data", Map.of("queued", queued, "stats", imageVariantService.stats())));
+    }
+    
+    // Request threading mode and where virtual threads got pinned to their carrier, worst sites first
+    @GetMapping("/threads")
+    public ResponseEntity<?> getThreadStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("virtualThreads", Thread.currentThread().isVirtual());
+        data.put("pinning", virtualThreadPinningMonitor.stats());
+        return ResponseEntity.ok(Map.of("success", true, "data", data));
+    }
+    
+    @GetMapping("/cache/principals")
+    public ResponseEntity<?> getPrincipalCacheStats() {
+        return ResponseEntity.ok(Map.of("success", true, "data", userPrincipalCache.stats()));
+    }
+    
     @GetMapping("/orders")
     @Transactional(readOnly = true)
     public ResponseEntity<?> getAllOrders(@RequestParam(defaultValue = "0") int page,
-                                        @RequestParam(defaultValue = "20") int size) {
+                                        @RequestParam(defaultValue = "20") int size,
+                                        @RequestParam(required = false) String cursor) {
         try {
+            // Cursor mode: pass cursor= (empty) for the first page, then the returned nextCursor
+            if (cursor != null) {
+                Slice<Order> slice = orderService.getOrdersAfter(KeysetCursor.decode(cursor), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+                List<Order> content = slice.getContent();
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("orders", toOrderResponses(content));
+                response.put("hasNext", slice.hasNext());
+                if (slice.hasNext()) {
+                    Order last = content.get(content.size() - 1);
+                    response.put("nextCursor", new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+                } else {
+                    response.put("nextCursor", null);
+                }
+                return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "data", response
+                ));
+            }
+            
             Pageable pageable = PageRequest.of(page, size);
             Page<Order> ordersPage = orderService.getAllOrders(pageable);
             
-            List<OrderResponse> orders = ordersPage.getContent().stream()
-                    .map(this::convertToOrderResponse)
-                    .collect(Collectors.toList());
+            List<OrderResponse> orders = toOrderResponses(ordersPage.getContent());
             
             Map<String, Object> response = Map.of(
                 "orders", orders,
@@ -189,8 +325,7 @@ public class AdminController {
             if (newRole == com.kidora.entity.User.Role.ADMIN) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Use primary admin account for ADMIN role"));
             }
-            user.setRole(newRole);
-            userService.updateUser(user);
+            userService.changeRole(user, newRole);
             return ResponseEntity.ok(Map.of("success", true, "message", "Role updated", "data", Map.of(
                 "id", user.getId(),
                 "role", user.getRole().name()
@@ -224,9 +359,7 @@ public class AdminController {
             Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
             List<Order> orders = orderService.getOrdersByStatus(orderStatus);
             
-            List<OrderResponse> response = orders.stream()
-                    .map(this::convertToOrderResponse)
-                    .collect(Collectors.toList());
+            List<OrderResponse> response = toOrderResponses(orders);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -318,7 +451,19 @@ public class AdminController {
         }
     }
     
+    // Batch-loads items and return requests for the whole list up front
+    private List<OrderResponse> toOrderResponses(List<Order> orders) {
+        Map<Long, ReturnRequest> returns = orderReadService.prefetch(orders);
+        return orders.stream()
+                .map(order -> convertToOrderResponse(order, returns.get(order.getId())))
+                .collect(Collectors.toList());
+    }
+    
     private OrderResponse convertToOrderResponse(Order order) {
+        return convertToOrderResponse(order, orderService.getReturnByOrder(order));
+    }
+    
+    private OrderResponse convertToOrderResponse(Order order, ReturnRequest existing) {
         // Same implementation as in OrderController
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
@@ -363,7 +508,6 @@ public class AdminController {
         }
 
     // Include return info if exists
-    var existing = orderService.getReturnByOrder(order);
     boolean eligible = order.getStatus() == Order.OrderStatus.DELIVERED && order.getDeliveredTime() != null
         && !order.getDeliveredTime().isBefore(java.time.LocalDateTime.now().minusDays(3));
     response.setReturnEligible(eligible);
@@ -3,9 +3,12 @@ package com.kidora.controller;
 import com.kidora.dto.auth.*;
 import com.kidora.entity.Otp;
 import com.kidora.entity.User;
+import com.kidora.service.OtpRateLimiter;
 import com.kidora.service.OtpService;
 import com.kidora.service.UserService;
 import com.kidora.util.JwtUtil;
+import com.kidora.util.VerifiedToken;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +27,12 @@ public class AuthController {
     private final UserService userService;
     private final OtpService otpService;
     private final JwtUtil jwtUtil;
+    private final OtpRateLimiter otpRateLimiter;
     
     @PostMapping("/send-otp")
-    public ResponseEntity<?> sendOtp(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> sendOtp(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Outside the try: a RateLimitExceededException must reach GlobalExceptionHandler as a 429
+        otpRateLimiter.checkSend(request.getEmail(), httpRequest);
         try {
             Otp.OtpType otpType = userService.isAdminEmail(request.getEmail()) 
                 ? Otp.OtpType.ADMIN_LOGIN 
@@ -48,7 +54,8 @@ public class AuthController {
     }
     
     @PostMapping("/register/send-otp")
-    public ResponseEntity<?> sendRegistrationOtp(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<?> sendRegistrationOtp(@Valid @RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        otpRateLimiter.checkSend(request.getEmail(), httpRequest);
         try {
             if (userService.findByEmail(request.getEmail()).isPresent()) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -73,7 +80,8 @@ public class AuthController {
     }
     
     @PostMapping("/verify-otp")
-    public ResponseEntity<?> verifyOtp(@Valid @RequestBody VerifyOtpRequest request) {
+    public ResponseEntity<?> verifyOtp(@Valid @RequestBody VerifyOtpRequest request, HttpServletRequest httpRequest) {
+        otpRateLimiter.checkVerify(request.getEmail(), httpRequest);
         try {
             boolean isValid = otpService.verifyOtp(request.getEmail(), request.getOtp());
             
@@ -159,18 +167,18 @@ public class AuthController {
                 ));
             }
             
-            String token = authHeader.substring(7);
-            boolean isValid = jwtUtil.validateToken(token);
-            
-            if (!isValid) {
+            VerifiedToken token;
+            try {
+                token = jwtUtil.verify(authHeader.substring(7));
+            } catch (Exception e) {
                 return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "message", "Invalid or expired token"
                 ));
             }
             
-            String email = jwtUtil.extractUsername(token);
-            String role = jwtUtil.extractRole(token);
+            String email = token.subject();
+            String role = token.role();
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -31,7 +31,7 @@ public class CartController {
         try {
             User user = (User) userService.loadUserByUsername(authentication.getName());
             List<CartItem> items = cartService.getCart(user);
-            List<CartItemResponse> data = items.stream().map(this::toResponse).collect(Collectors.toList());
+            List<CartItemResponse> data = items.stream().map(CartController::toResponse).collect(Collectors.toList());
             return ResponseEntity.ok(Map.of("success", true, "data", data));
         } catch (Exception e) {
             log.error("Error fetching cart", e);
@@ -75,7 +75,8 @@ public class CartController {
         }
     }
 
-    private CartItemResponse toResponse(CartItem item) {
+    // Static and package-private so the JMH harness can measure it without a controller
+    static CartItemResponse toResponse(CartItem item) {
         CartItemResponse res = new CartItemResponse();
     // Frontend expects `id` to be the product id
     res.setId(item.getProduct().getId());
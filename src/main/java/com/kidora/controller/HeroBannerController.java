@@ -2,6 +2,7 @@ package com.kidora.controller;
 
 import com.kidora.entity.HeroBanner;
 import com.kidora.service.HeroBannerService;
+import com.kidora.service.ImageVariantService;
 import com.kidora.service.LocalObjectStorageService;
 import com.kidora.service.ProductService;
 import com.kidora.entity.Product;
@@ -10,7 +11,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -24,6 +24,7 @@ public class HeroBannerController {
     private final HeroBannerService service;
     private final LocalObjectStorageService localStorage;
     private final ProductService productService;
+    private final ImageVariantService imageVariantService;
 
     @GetMapping
     public ResponseEntity<?> list() {
@@ -49,10 +50,10 @@ public class HeroBannerController {
             @RequestParam(required = false, defaultValue = "0") Integer orderIndex
     ) {
         String stored = localStorage.storeFile(image);
-        String imageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/uploads/products/")
-                .path(stored)
-                .toUriString();
+        String imageUrl = localStorage.publicUrl(stored);
+
+        // Stored once, whether they go into an auto-created product or are appended to a linked one
+        List<String> extraUrls = storeAdditionalImages(additionalImages);
 
         HeroBanner b = new HeroBanner();
         b.setTitle(title);
@@ -79,22 +80,13 @@ public class HeroBannerController {
             p.setMainImage(imageUrl);
             java.util.List<String> gallery = new java.util.ArrayList<>();
             gallery.add(imageUrl);
-            // Store and add any additional images
-            if (additionalImages != null && additionalImages.length > 0) {
-                for (MultipartFile f : additionalImages) {
-                    if (f != null && !f.isEmpty()) {
-                        String storedExtra = localStorage.storeFile(f);
-                        String urlExtra = ServletUriComponentsBuilder.fromCurrentContextPath()
-                                .path("/uploads/products/")
-                                .path(storedExtra)
-                                .toUriString();
-                        if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
-                    }
-                }
+            for (String urlExtra : extraUrls) {
+                if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
             }
             p.setImages(gallery);
             p.setAvailableSizes(java.util.List.of("XS","S","M","L","XL","XXL"));
             Product created = productService.createProduct(p);
+            imageVariantService.generateFor(created);
             b.setProductId(created.getId());
         } else {
             b.setProductId(productId);
@@ -102,19 +94,13 @@ public class HeroBannerController {
 
         HeroBanner saved = service.create(b);
 
-        // If linked product exists and additional images uploaded, append them to product's gallery
-        if (saved.getProductId() != null && additionalImages != null && additionalImages.length > 0) {
-            var product = productService.getProductById(saved.getProductId());
+        // If an existing product was linked, append the additional images to its gallery
+        // (an auto-created product already got them above)
+        if (productId != null && !extraUrls.isEmpty()) {
+            var product = productService.getProductForUpdate(saved.getProductId());
             var gallery = product.getImages() != null ? new java.util.ArrayList<>(product.getImages()) : new java.util.ArrayList<String>();
-            for (MultipartFile f : additionalImages) {
-                if (f != null && !f.isEmpty()) {
-                    String storedExtra = localStorage.storeFile(f);
-                    String urlExtra = ServletUriComponentsBuilder.fromCurrentContextPath()
-                            .path("/uploads/products/")
-                            .path(storedExtra)
-                            .toUriString();
-                    if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
-                }
+            for (String urlExtra : extraUrls) {
+                if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
             }
             product.setImages(gallery);
             productService.updateProduct(product);
@@ -155,10 +141,7 @@ public class HeroBannerController {
 
         if (image != null && !image.isEmpty()) {
             String stored = localStorage.storeFile(image);
-            String imageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/uploads/products/")
-                    .path(stored)
-                    .toUriString();
+            String imageUrl = localStorage.publicUrl(stored);
             b.setImageUrl(imageUrl);
         }
 
@@ -166,17 +149,10 @@ public class HeroBannerController {
 
         // Append any newly uploaded additional images to linked product
         if (productId != null && additionalImages != null && additionalImages.length > 0) {
-            var product = productService.getProductById(productId);
+            var product = productService.getProductForUpdate(productId);
             var gallery = product.getImages() != null ? new java.util.ArrayList<>(product.getImages()) : new java.util.ArrayList<String>();
-            for (MultipartFile f : additionalImages) {
-                if (f != null && !f.isEmpty()) {
-                    String storedExtra = localStorage.storeFile(f);
-                    String urlExtra = ServletUriComponentsBuilder.fromCurrentContextPath()
-                            .path("/uploads/products/")
-                            .path(storedExtra)
-                            .toUriString();
-                    if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
-                }
+            for (String urlExtra : storeAdditionalImages(additionalImages)) {
+                if (!gallery.contains(urlExtra)) gallery.add(urlExtra);
             }
             product.setImages(gallery);
             productService.updateProduct(product);
@@ -190,4 +166,19 @@ public class HeroBannerController {
         service.delete(id);
         return ResponseEntity.ok(Map.of("success", true));
     }
+
+    private List<String> storeAdditionalImages(MultipartFile[] files) {
+        List<MultipartFile> uploads = new java.util.ArrayList<>();
+        if (files != null) {
+            for (MultipartFile f : files) {
+                if (f != null && !f.isEmpty()) uploads.add(f);
+            }
+        }
+        // Written in parallel; all-or-nothing
+        List<String> urls = new java.util.ArrayList<>();
+        for (String stored : localStorage.storeFiles(uploads)) {
+            urls.add(localStorage.publicUrl(stored));
+        }
+        return urls;
+    }
 }
@@ -2,13 +2,19 @@
 package com.kidora.controller;
 
 
+import com.kidora.service.FileServingService;
 import com.kidora.service.LocalObjectStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 
 
 
@@ -17,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class LocalStorageController {
 	private final LocalObjectStorageService localObjectStorageService;
+	private final FileServingService fileServingService;
 	
 	@PostMapping("/upload")
 	public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
@@ -25,9 +32,9 @@ public class LocalStorageController {
 	}
 	
 	@GetMapping("/download")
-	public ResponseEntity<Resource> downloadFile(@RequestParam("file") String fileName) {
-		Resource resource = localObjectStorageService.loadFileAsResource(fileName);
-		return ResponseEntity.ok(resource);
+	public void downloadFile(@RequestParam("file") String fileName,
+							 HttpServletRequest request, HttpServletResponse response) throws IOException {
+		fileServingService.serve(fileName, request, response);
 	}
 	
 	@DeleteMapping("/delete")
@@ -37,8 +44,11 @@ public class LocalStorageController {
 	}
 	
 	@GetMapping("/base64")
-	public ResponseEntity<String> getFileAsBase64(@RequestParam("file") String fileName) {
-		String base64Data = localObjectStorageService.getFileAsBase64(fileName);
-		return ResponseEntity.ok(base64Data);
+	public ResponseEntity<StreamingResponseBody> getFileAsBase64(@RequestParam("file") String fileName) {
+		// Encoded while streaming instead of holding the file and its encoding in memory
+		localObjectStorageService.loadFileAsResource(fileName);
+		return ResponseEntity.ok()
+				.contentType(MediaType.TEXT_PLAIN)
+				.body(out -> localObjectStorageService.writeBase64(fileName, out));
 	}
 }
\ No newline at end of file
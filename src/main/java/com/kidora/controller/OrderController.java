@@ -7,7 +7,7 @@ import com.kidora.repository.ProductRepository;
 import com.kidora.entity.ReturnRequest;
 import com.kidora.service.LocalObjectStorageService;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import com.kidora.service.OrderReadService;
 import com.kidora.service.OrderService;
 import com.kidora.service.UserService;
 import jakarta.validation.Valid;
@@ -19,8 +19,10 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -30,7 +32,10 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class OrderController {
     
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    
     private final OrderService orderService;
+    private final OrderReadService orderReadService;
     private final UserService userService;
     private final ProductRepository productRepository;
     private final LocalObjectStorageService localObjectStorageService;
@@ -41,12 +46,24 @@ public class OrderController {
         try {
             User user = (User) userService.loadUserByUsername(authentication.getName());
             
+            // Resolve every product in one query, then validate and price the lines in memory
+            Map<Long, Product> products = productRepository.findAllById(request.getItems().stream()
+                            .map(CreateOrderRequest.OrderItemRequest::getProductId)
+                            .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            Map<Long, Integer> requested = new HashMap<>();
+            request.getItems().forEach(itemReq -> requested.merge(itemReq.getProductId(), itemReq.getQuantity(), Integer::sum));
+            
             // Create order items
             List<OrderItem> orderItems = request.getItems().stream().map(itemReq -> {
-                Product product = productRepository.findById(itemReq.getProductId())
-                        .orElseThrow(() -> new RuntimeException("Product not found: " + itemReq.getProductId()));
+                Product product = products.get(itemReq.getProductId());
+                if (product == null) {
+                    throw new RuntimeException("Product not found: " + itemReq.getProductId());
+                }
                 
-                if (product.getStock() < itemReq.getQuantity()) {
+                // Early rejection only; the authoritative check is the reservation taken in createOrder
+                if (product.getAvailableStock() < requested.get(product.getId())) {
                     throw new RuntimeException("Insufficient stock for product: " + product.getTitle());
                 }
                 
@@ -111,15 +128,14 @@ public class OrderController {
             }
             java.util.List<String> photoUrls = new java.util.ArrayList<>();
             if (photos != null) {
+                java.util.List<MultipartFile> uploads = new java.util.ArrayList<>();
                 for (MultipartFile f : photos) {
-                    if (f != null && !f.isEmpty()) {
-                        String stored = localObjectStorageService.storeFile(f);
-                        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
-                                .path("/uploads/products/")
-                                .path(stored)
-                                .toUriString();
-                        photoUrls.add(url);
-                    }
+                    if (f != null && !f.isEmpty()) uploads.add(f);
+                }
+                // Written in parallel; all-or-nothing
+                for (String stored : localObjectStorageService.storeFiles(uploads)) {
+                    String url = localObjectStorageService.publicUrl(stored);
+                    photoUrls.add(url);
                 }
             }
             orderService.createReturnRequest(user, orderId, reason, productId, phone, email, reasonCategory, photoUrls);
@@ -145,8 +161,10 @@ public class OrderController {
             User user = (User) userService.loadUserByUsername(authentication.getName());
             List<Order> orders = orderService.getUserOrders(user);
             
+            // Batch-load items and return requests for all orders up front
+            Map<Long, ReturnRequest> returns = orderReadService.prefetch(orders);
             List<OrderResponse> response = orders.stream()
-                    .map(this::convertToOrderResponse)
+                    .map(order -> convertToOrderResponse(order, returns.get(order.getId())))
                     .collect(Collectors.toList());
             
             return ResponseEntity.ok(Map.of(
@@ -226,6 +244,11 @@ public class OrderController {
     }
     
     private OrderResponse convertToOrderResponse(Order order) {
+        return convertToOrderResponse(order, orderService.getReturnByOrder(order));
+    }
+    
+    // Static and package-private so the JMH harness can measure it without a controller
+    static OrderResponse convertToOrderResponse(Order order, ReturnRequest existing) {
     OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setOrderNumber(order.getOrderNumber());
@@ -258,13 +281,12 @@ public class OrderController {
         tracking.setDeliveredTime(order.getDeliveredTime());
         
         // Create tracking steps
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
         List<OrderResponse.TrackingStep> steps = List.of(
-            createTrackingStep("processing", "Processing", order.getProcessingTime(), order.getStatus(), timeFormatter),
-            createTrackingStep("packed", "Packed", order.getPackedTime(), order.getStatus(), timeFormatter),
-            createTrackingStep("shipped", "Shipped", order.getShippedTime(), order.getStatus(), timeFormatter),
-            createTrackingStep("out_for_delivery", "Out for Delivery", order.getOutForDeliveryTime(), order.getStatus(), timeFormatter),
-            createTrackingStep("delivered", "Delivered", order.getDeliveredTime(), order.getStatus(), timeFormatter)
+            createTrackingStep("processing", "Processing", order.getProcessingTime(), order.getStatus()),
+            createTrackingStep("packed", "Packed", order.getPackedTime(), order.getStatus()),
+            createTrackingStep("shipped", "Shipped", order.getShippedTime(), order.getStatus()),
+            createTrackingStep("out_for_delivery", "Out for Delivery", order.getOutForDeliveryTime(), order.getStatus()),
+            createTrackingStep("delivered", "Delivered", order.getDeliveredTime(), order.getStatus())
         );
         tracking.setSteps(steps);
         response.setTracking(tracking);
@@ -290,7 +312,6 @@ public class OrderController {
     boolean eligible = order.getStatus() == Order.OrderStatus.DELIVERED && order.getDeliveredTime() != null
         && !order.getDeliveredTime().isBefore(java.time.LocalDateTime.now().minusDays(3));
     response.setReturnEligible(eligible);
-    ReturnRequest existing = orderService.getReturnByOrder(order);
     if (existing != null) {
         OrderResponse.ReturnInfo info = new OrderResponse.ReturnInfo();
         info.setId(existing.getId());
@@ -308,14 +329,13 @@ public class OrderController {
         return response;
     }
     
-    private OrderResponse.TrackingStep createTrackingStep(String key, String label, 
+    private static OrderResponse.TrackingStep createTrackingStep(String key, String label, 
                                                          java.time.LocalDateTime time, 
-                                                         Order.OrderStatus currentStatus,
-                                                         DateTimeFormatter timeFormatter) {
+                                                         Order.OrderStatus currentStatus) {
         OrderResponse.TrackingStep step = new OrderResponse.TrackingStep();
         step.setKey(key);
         step.setLabel(label);
-        step.setTime(time != null ? time.format(timeFormatter) : null);
+        step.setTime(time != null ? time.format(TIME_FORMAT) : null);
         
         // Determine if step is completed based on current status
         step.setCompleted(isStepCompleted(key, currentStatus));
@@ -323,7 +343,7 @@ public class OrderController {
         return step;
     }
     
-    private boolean isStepCompleted(String stepKey, Order.OrderStatus currentStatus) {
+    private static boolean isStepCompleted(String stepKey, Order.OrderStatus currentStatus) {
         return switch (stepKey) {
             case "processing" -> true; // Always completed if order exists
             case "packed" -> currentStatus.ordinal() >= Order.OrderStatus.PACKED.ordinal();
@@ -3,20 +3,23 @@ package com.kidora.controller;
 import com.kidora.entity.Product;
 import com.kidora.service.ProductService;
 import com.kidora.service.FileUploadService;
+import com.kidora.service.ImageVariantService;
 import com.kidora.service.LocalObjectStorageService;
+import com.kidora.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,21 +30,32 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    // Upper bound for size on the search and cursor listings, so one request cannot pull the whole catalog
+    static final int MAX_PAGE_SIZE = 100;
+    
     private final ProductService productService;
     private final FileUploadService fileUploadService;
+    private final ImageVariantService imageVariantService;
     private final LocalObjectStorageService localObjectStorageService;
     
+    /**
+     * Search (search=...) returns a page: data.products plus currentPage, totalPages, totalElements,
+     * hasNext and hasPrevious, like the page/size listing. It used to return a bare product list.
+     * size defaults to 20 and is capped at {@value #MAX_PAGE_SIZE}.
+     */
     @GetMapping
     public ResponseEntity<?> getAllProducts(@RequestParam(defaultValue = "0") int page,
                                           @RequestParam(defaultValue = "20") int size,
                                           @RequestParam(required = false) String category,
-                                          @RequestParam(required = false) String search) {
+                                          @RequestParam(required = false) String search,
+                                          @RequestParam(required = false) String cursor) {
         try {
             if (search != null && !search.trim().isEmpty()) {
-                List<Product> products = productService.searchProducts(search);
+                Pageable pageable = PageRequest.of(Math.max(page, 0), size > 0 ? Math.min(size, MAX_PAGE_SIZE) : 20);
+                Page<Product> results = productService.searchProducts(search.trim(), pageable);
                 return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "data", products
+                    "data", toPageResponse(results)
                 ));
             }
             
@@ -53,22 +67,32 @@ public class ProductController {
                 ));
             }
             
+            // Cursor mode: pass cursor= (empty) for the first page, then the returned nextCursor
+            if (cursor != null && size > 0) {
+                Slice<Product> slice = productService.getActiveProductsAfter(KeysetCursor.decode(cursor), Math.min(size, MAX_PAGE_SIZE));
+                List<Product> content = slice.getContent();
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("products", content);
+                response.put("hasNext", slice.hasNext());
+                if (slice.hasNext()) {
+                    Product last = content.get(content.size() - 1);
+                    response.put("nextCursor", new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+                } else {
+                    response.put("nextCursor", null);
+                }
+                return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "data", response
+                ));
+            }
+            
             if (page >= 0 && size > 0) {
                 Pageable pageable = PageRequest.of(page, size);
                 Page<Product> productsPage = productService.getActiveProducts(pageable);
                 
-                Map<String, Object> response = Map.of(
-                    "products", productsPage.getContent(),
-                    "currentPage", productsPage.getNumber(),
-                    "totalPages", productsPage.getTotalPages(),
-                    "totalElements", productsPage.getTotalElements(),
-                    "hasNext", productsPage.hasNext(),
-                    "hasPrevious", productsPage.hasPrevious()
-                );
-                
                 return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "data", response
+                    "data", toPageResponse(productsPage)
                 ));
             }
             
@@ -86,6 +110,17 @@ public class ProductController {
         }
     }
     
+    private Map<String, Object> toPageResponse(Page<Product> productsPage) {
+        return Map.of(
+            "products", productsPage.getContent(),
+            "currentPage", productsPage.getNumber(),
+            "totalPages", productsPage.getTotalPages(),
+            "totalElements", productsPage.getTotalElements(),
+            "hasNext", productsPage.hasNext(),
+            "hasPrevious", productsPage.hasPrevious()
+        );
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
         try {
@@ -125,6 +160,7 @@ public class ProductController {
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
         try {
             Product savedProduct = productService.createProduct(product);
+            imageVariantService.generateFor(savedProduct);
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Product created successfully",
@@ -144,6 +180,9 @@ public class ProductController {
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product product) {
         try {
             Product updatedProduct = productService.updateProduct(id, product);
+            if (updatedProduct.getImageVariants().isEmpty()) {
+                imageVariantService.generateFor(updatedProduct);
+            }
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Product updated successfully",
@@ -212,28 +251,12 @@ public class ProductController {
         try {
             // Upload main image
             // Upload main image using local storage service
-        String mainStored = localObjectStorageService.storeFile(mainImage);
-        String mainImageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-            .path("/uploads/products/")
-            .path(mainStored)
-            .toUriString();
-            
-            // Upload additional images
-            List<String> imageUrls = new ArrayList<>();
-            imageUrls.add(mainImageUrl); // Add main image to list
-            
-            if (additionalImages != null && additionalImages.length > 0) {
-                for (MultipartFile f : additionalImages) {
-                    if (f != null && !f.isEmpty()) {
-            String stored = localObjectStorageService.storeFile(f);
-            String url = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/uploads/products/")
-                .path(stored)
-                .toUriString();
-            imageUrls.add(url);
-                    }
-                }
-            }
+            // Main and additional images are written in parallel as one batch
+            List<MultipartFile> uploads = new ArrayList<>();
+            uploads.add(mainImage);
+            uploads.addAll(nonEmpty(additionalImages));
+            List<String> imageUrls = uploadUrls(localObjectStorageService.storeFiles(uploads));
+            String mainImageUrl = imageUrls.get(0);
             
             // Create product
             Product product = new Product();
@@ -258,6 +281,7 @@ public class ProductController {
             }
             
             Product savedProduct = productService.createProduct(product);
+            imageVariantService.generateFor(savedProduct);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -290,7 +314,7 @@ public class ProductController {
             @RequestParam(value = "additionalImages", required = false) MultipartFile[] additionalImages,
             @RequestParam(value = "existingImages", required = false) List<String> existingImages) {
         try {
-            Product existingProduct = productService.getProductById(id);
+            Product existingProduct = productService.getProductForUpdate(id);
             if (existingProduct == null) {
                 return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
@@ -302,7 +326,6 @@ public class ProductController {
             existingProduct.setTitle(title);
             existingProduct.setDescription(description);
             existingProduct.setPrice(price);
-            existingProduct.setStock(stock);
             existingProduct.setCategory(category);
             existingProduct.setDiscount(discount);
             existingProduct.setVideoUrl(videoUrl);
@@ -316,18 +339,18 @@ public class ProductController {
             }
             
             // Update main image if provided
-            if (mainImage != null && !mainImage.isEmpty()) {
-                // Delete old main image
-                fileUploadService.deleteFile(existingProduct.getMainImage());
-                
-                // Upload new main image
-                // Upload new main image via local storage service
-        String newStored = localObjectStorageService.storeFile(mainImage);
-        String newMainImageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-            .path("/uploads/products/")
-            .path(newStored)
-            .toUriString();
-                existingProduct.setMainImage(newMainImageUrl);
+            String replacedMainImage = null;
+            boolean newMainImage = mainImage != null && !mainImage.isEmpty();
+            List<MultipartFile> uploads = new ArrayList<>();
+            if (newMainImage) {
+                uploads.add(mainImage);
+            }
+            uploads.addAll(nonEmpty(additionalImages));
+            // New main and additional images are written in parallel as one batch
+            List<String> uploadedUrls = uploadUrls(localObjectStorageService.storeFiles(uploads));
+            if (newMainImage) {
+                replacedMainImage = existingProduct.getMainImage();
+                existingProduct.setMainImage(uploadedUrls.get(0));
             }
 
             // Rebuild full images list: main + kept existing + newly uploaded
@@ -346,21 +369,19 @@ public class ProductController {
                     if (url != null && !url.equals(mainUrl)) rebuilt.add(url);
                 }
             }
-            if (additionalImages != null && additionalImages.length > 0) {
-                for (MultipartFile f : additionalImages) {
-                    if (f != null && !f.isEmpty()) {
-                        String stored = localObjectStorageService.storeFile(f);
-                        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
-                            .path("/uploads/products/")
-                            .path(stored)
-                            .toUriString();
-                        rebuilt.add(url);
-                    }
-                }
-            }
+            rebuilt.addAll(uploadedUrls.subList(newMainImage ? 1 : 0, uploadedUrls.size()));
             existingProduct.setImages(rebuilt);
             
-            Product updatedProduct = productService.updateProduct(existingProduct);
+            if (replacedMainImage != null) {
+                // Variants of the old image; new ones are rendered in the background
+                existingProduct.getImageVariants().clear();
+            }
+            Product updatedProduct = productService.updateProduct(existingProduct, stock);
+            if (replacedMainImage != null) {
+                imageVariantService.generateFor(updatedProduct);
+            }
+            // Replaced or dropped images stay: a banner or past orders may still show them.
+            // UploadGarbageCollector removes them once nothing in the database refers to them
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -394,4 +415,24 @@ public class ProductController {
             ));
         }
     }
+    
+    private static List<MultipartFile> nonEmpty(MultipartFile[] files) {
+        List<MultipartFile> result = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile f : files) {
+                if (f != null && !f.isEmpty()) {
+                    result.add(f);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private List<String> uploadUrls(List<String> storedNames) {
+        List<String> urls = new ArrayList<>(storedNames.size());
+        for (String stored : storedNames) {
+            urls.add(localObjectStorageService.publicUrl(stored));
+        }
+        return urls;
+    }
 }
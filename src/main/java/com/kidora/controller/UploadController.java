@@ -0,0 +1,35 @@
+package com.kidora.controller;
+
+import com.kidora.service.FileServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Product images under /uploads/products/**, with ETag/304, byte ranges and long-lived caching
+ * (takes precedence over the plain resource handler in StaticResourceConfig).
+ */
+@Controller
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String PREFIX = "/uploads/products/";
+
+    private final FileServingService fileServingService;
+
+    @RequestMapping(value = "/uploads/products/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        if (path == null || !path.startsWith(PREFIX)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileServingService.serve(path.substring(PREFIX.length()), request, response);
+    }
+}
@@ -44,7 +44,9 @@ public class UserController {
     @PutMapping("/me")
     public ResponseEntity<?> updateMe(@RequestBody UpdateUserRequest req, Authentication authentication) {
         try {
-            User user = (User) userService.loadUserByUsername(authentication.getName());
+            // The cached principal is a copy; change the managed row
+            User user = userService.findByEmail(authentication.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
             if (req.getFirstName() != null) user.setFirstName(req.getFirstName());
             if (req.getLastName() != null) user.setLastName(req.getLastName());
             if (req.getPhone() != null) user.setPhone(req.getPhone());
@@ -0,0 +1,38 @@
+package com.kidora.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row per calendar day of order activity, maintained by DashboardRollupService.
+ * orderCount counts every placed order; revenue and itemsSold leave out cancelled orders.
+ */
+@Entity
+@Table(name = "daily_sales_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesRollup {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate day;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "items_sold", nullable = false)
+    private Long itemsSold = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
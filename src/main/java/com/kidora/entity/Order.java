@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_id", columnList = "created_at DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
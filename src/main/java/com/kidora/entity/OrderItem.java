@@ -14,8 +14,10 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class OrderItem {
     
+    // Sequence ids (pooled by 50) let Hibernate batch item inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -7,10 +7,14 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_created_id", columnList = "active, created_at DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,9 +30,15 @@ public class Product {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
     
-    @Column(nullable = false)
+    // Set on insert only; every later change is a guarded UPDATE in ProductStockService, so a saved Product
+    // can never write back a stock value that a concurrent checkout or delivery has since changed
+    @Column(nullable = false, updatable = false)
     private Integer stock;
     
+    // Running total of stock_reservations for this product; maintained only by ProductStockService
+    @Column(name = "reserved_stock", columnDefinition = "integer default 0 not null", updatable = false)
+    private Integer reservedStock = 0;
+    
     private Double rating = 0.0;
     
     @Column(nullable = false)
@@ -49,6 +59,13 @@ public class Product {
     @Column(name = "image_url")
     private List<String> images;
     
+    // Downscaled copies of mainImage by variant name (thumb, card, detail), filled in by ImageVariantService
+    @ElementCollection
+    @CollectionTable(name = "product_image_variants", joinColumns = @JoinColumn(name = "product_id"))
+    @MapKeyColumn(name = "variant", length = 20)
+    @Column(name = "image_url")
+    private Map<String, String> imageVariants = new HashMap<>();
+    
     @ElementCollection
     @CollectionTable(name = "product_sizes", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "size")
@@ -69,4 +86,16 @@ public class Product {
         }
         return price;
     }
+    
+    // What listings should show: the card-sized variant once it exists, else the original
+    public String getListImage() {
+        String card = imageVariants != null ? imageVariants.get("card") : null;
+        return card != null ? card : mainImage;
+    }
+    
+    public int getAvailableStock() {
+        int onHand = stock != null ? stock : 0;
+        int reserved = reservedStock != null ? reservedStock : 0;
+        return Math.max(onHand - reserved, 0);
+    }
 }
@@ -0,0 +1,35 @@
+package com.kidora.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime quantity sold per product (cancelled orders excluded), maintained by DashboardRollupService.
+ */
+@Entity
+@Table(name = "product_sales_rollup", indexes = {
+        @Index(name = "idx_product_sales_rollup_quantity", columnList = "quantity DESC")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesRollup {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    // Title as of the most recent order line
+    @Column(name = "product_title")
+    private String productTitle;
+
+    @Column(nullable = false)
+    private Long quantity = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
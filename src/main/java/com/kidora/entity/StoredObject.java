@@ -0,0 +1,36 @@
+package com.kidora.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One content-addressed upload (key = "ab/cd/&lt;sha256&gt;.ext") and how many stores refer to it.
+ * Maintained with JDBC upserts by LocalObjectStorageService.
+ */
+@Entity
+@Table(name = "stored_objects")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+
+    @Id
+    @Column(name = "object_key", length = 100)
+    private String objectKey;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "last_referenced_at", nullable = false)
+    private LocalDateTime lastReferencedAt = LocalDateTime.now();
+}
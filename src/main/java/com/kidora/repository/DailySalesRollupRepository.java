@@ -0,0 +1,29 @@
+package com.kidora.repository;
+
+import com.kidora.entity.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, LocalDate> {
+
+    List<DailySalesRollup> findByDayGreaterThanEqualOrderByDayAsc(LocalDate from);
+
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0) FROM DailySalesRollup r WHERE r.day >= :from")
+    Long sumOrderCountSince(LocalDate from);
+
+    @Query("SELECT COALESCE(SUM(r.revenue), 0) FROM DailySalesRollup r WHERE r.day >= :from")
+    BigDecimal sumRevenueSince(LocalDate from);
+
+    @Query("SELECT COALESCE(SUM(r.itemsSold), 0) FROM DailySalesRollup r WHERE r.day >= :from")
+    Long sumItemsSoldSince(LocalDate from);
+
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0) FROM DailySalesRollup r")
+    Long sumOrderCount();
+
+    @Query("SELECT COALESCE(SUM(r.revenue), 0) FROM DailySalesRollup r")
+    BigDecimal sumRevenue();
+}
@@ -0,0 +1,34 @@
+package com.kidora.repository;
+
+import com.kidora.entity.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // FOR UPDATE SKIP LOCKED: concurrent workers (threads or nodes) claim disjoint rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = com.kidora.entity.EmailOutbox.Status.PENDING " +
+           "AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<EmailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(EmailOutbox.Status status);
+
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = com.kidora.entity.EmailOutbox.Status.PENDING")
+    LocalDateTime oldestPending();
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = com.kidora.entity.EmailOutbox.Status.SENT AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -6,9 +6,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,25 +20,21 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Page<Order> findAllByOrderByCreatedAtDesc(Pageable pageable);
     
+    // Keyset paging for the admin list, served by idx_orders_created_id
+    List<Order> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAllBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
     List<Order> findByStatus(Order.OrderStatus status);
     
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.createdAt >= :startDate")
-    Long countOrdersSince(LocalDateTime startDate);
+    // Initializes orderItems (and item products) for orders already in the persistence context
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product WHERE o.id IN :ids")
+    List<Order> fetchItemsByIdIn(Collection<Long> ids);
     
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.createdAt >= :startDate")
-    Double getTotalRevenueSince(LocalDateTime startDate);
-
-    @Query("SELECT SUM(o.totalAmount) FROM Order o")
-    Double getTotalRevenueAllTime();
-
-    @Query("SELECT COALESCE(SUM(oi.quantity),0) FROM Order o JOIN o.orderItems oi WHERE o.createdAt >= :startDate")
-    Long getTotalItemsSoldSince(LocalDateTime startDate);
-
-    @Query("SELECT NEW map(FUNCTION('date', o.createdAt) as day, SUM(o.totalAmount) as amount) FROM Order o WHERE o.createdAt >= :startDate GROUP BY FUNCTION('date', o.createdAt) ORDER BY day ASC")
-    List<java.util.Map<String,Object>> getDailyRevenueSince(LocalDateTime startDate);
-
-    @Query("SELECT oi.product.id, oi.productTitle, SUM(oi.quantity) as qty FROM Order o JOIN o.orderItems oi GROUP BY oi.product.id, oi.productTitle ORDER BY qty DESC")
-    List<Object[]> getTopProducts();
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
     
     @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.createdAt ASC")
     List<Order> findByStatusOrderByCreatedAtAsc(Order.OrderStatus status);
@@ -2,6 +2,8 @@ package com.kidora.repository;
 
 import com.kidora.entity.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -14,5 +16,10 @@ public interface OtpRepository extends JpaRepository<Otp, Long> {
     
     void deleteByEmailAndType(String email, Otp.OtpType type);
     
+    // Conditional so two concurrent verifications cannot both use the same code
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = true WHERE o.id = :id AND o.used = false")
+    int markUsed(Long id);
+    
     void deleteByExpiryTimeBefore(LocalDateTime currentTime);
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,15 +16,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByActiveTrue();
     
+    @Query("SELECT p.id FROM Product p WHERE p.active = true AND p.imageVariants IS EMPTY")
+    List<Long> findActiveIdsWithoutImageVariants();
+    
     List<Product> findByCategoryAndActiveTrue(String category);
     
     Page<Product> findByActiveTrueOrderByCreatedAtDesc(Pageable pageable);
     
+    // Keyset paging: no OFFSET and no count query, served by idx_products_active_created_id
+    List<Product> findByActiveTrueOrderByCreatedAtDescIdDesc(Pageable pageable);
+    
+    @Query("SELECT p FROM Product p WHERE p.active = true AND p.createdAt <= :createdAt " +
+           "AND (p.createdAt < :createdAt OR p.id < :id) ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findActiveBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
     @Query("SELECT p FROM Product p WHERE p.active = true AND " +
            "(LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(p.category) LIKE LOWER(CONCAT('%', :query, '%')))")
-    List<Product> searchProducts(@Param("query") String query);
+    Page<Product> searchProducts(@Param("query") String query, Pageable pageable);
+    
+    // Ranked search over the generated search_vector column (see ProductSearchIndexInitializer)
+    @Query(value = "SELECT p.* FROM products p WHERE p.active = true " +
+                   "AND p.search_vector @@ to_tsquery('simple', :tsQuery) " +
+                   "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', :tsQuery)) DESC, p.id DESC",
+           countQuery = "SELECT COUNT(*) FROM products p WHERE p.active = true " +
+                        "AND p.search_vector @@ to_tsquery('simple', :tsQuery)",
+           nativeQuery = true)
+    Page<Product> fullTextSearch(@Param("tsQuery") String tsQuery, Pageable pageable);
     
     List<Product> findByStockLessThanAndActiveTrue(Integer stockThreshold);
 }
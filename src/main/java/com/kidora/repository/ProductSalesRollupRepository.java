@@ -0,0 +1,12 @@
+package com.kidora.repository;
+
+import com.kidora.entity.ProductSalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    List<ProductSalesRollup> findByQuantityGreaterThanOrderByQuantityDescProductIdAsc(Long quantity, Pageable pageable);
+}
@@ -5,6 +5,7 @@ import com.kidora.entity.ReturnRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +15,10 @@ public interface ReturnRequestRepository extends JpaRepository<ReturnRequest, Lo
 
     @Query("SELECT rr FROM ReturnRequest rr JOIN FETCH rr.order o JOIN FETCH rr.user u ORDER BY rr.createdAt DESC")
     List<ReturnRequest> findAllWithOrderAndUser();
+
+    @Query("SELECT DISTINCT rr FROM ReturnRequest rr LEFT JOIN FETCH rr.photoUrls WHERE rr.order.id IN :orderIds")
+    List<ReturnRequest> findByOrderIdsWithPhotos(Collection<Long> orderIds);
+
+    @Query("SELECT rr.status, COUNT(rr) FROM ReturnRequest rr GROUP BY rr.status")
+    List<Object[]> countGroupedByStatus();
 }
@@ -0,0 +1,29 @@
+package com.kidora.repository;
+
+import com.kidora.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Row locks make release/consume idempotent: a second caller waits, then finds nothing left
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.orderId = :orderId ORDER BY r.productId")
+    List<StockReservation> lockByOrderId(Long orderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.expiresAt < :now ORDER BY r.orderId, r.productId")
+    List<StockReservation> lockExpired(LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.expiresAt = NULL WHERE r.orderId = :orderId AND r.expiresAt IS NOT NULL")
+    int clearExpiry(Long orderId);
+
+    long countByOrderId(Long orderId);
+}
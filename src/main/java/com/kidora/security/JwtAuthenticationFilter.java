@@ -1,23 +1,36 @@
 package com.kidora.security;
 
+import com.kidora.entity.User;
 import com.kidora.service.UserService;
 import com.kidora.util.JwtUtil;
+import com.kidora.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Authenticates "Bearer" requests. The token is parsed and verified once.
+ * In "claims" mode (default) a USER token's principal is the email with authority from the signed role claim,
+ * so no user lookup happens here; handlers that need the entity call UserService.loadUserByUsername,
+ * which is cached. ADMIN and SUB_ADMIN tokens are always checked against the users table, uncached, so
+ * a revoked role stops working on every node at once. "lookup" mode always resolves the User entity as the principal.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -26,42 +39,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserService userService;
     
+    @Value("${security.jwt.auth-mode:claims}")
+    private String authMode;
+    
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         
     final String requestTokenHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwtToken = null;
+        VerifiedToken token = null;
         
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                token = jwtUtil.verify(requestTokenHeader.substring(7));
             } catch (Exception e) {
                 log.warn("Unable to get JWT Token or JWT Token has expired");
             }
         }
         
-        // Once we get the token validate it.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Signature and expiry were verified by the parse above
+        if (token != null && token.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = userService.loadUserByUsername(username);
-                
-                // if token is valid configure Spring Security to manually set authentication
-                if (jwtUtil.validateToken(jwtToken, userDetails)) {
-                    UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null,
-                                    userDetails.getAuthorities());
-                    usernamePasswordAuthenticationToken
-                            .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // After setting the Authentication in the context, we specify
-                    // that the current user is authenticated. So it passes the Spring Security Configurations successfully.
-                    SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-                }
+                UsernamePasswordAuthenticationToken authentication = authenticate(token);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             } catch (Exception e) {
                 log.warn("Unable to set user authentication: {}", e.getMessage());
             }
@@ -69,4 +73,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    private UsernamePasswordAuthenticationToken authenticate(VerifiedToken token) {
+        String email = token.subject();
+        String role = token.role();
+        if ("claims".equalsIgnoreCase(authMode) && User.Role.USER.name().equals(role)) {
+            return new UsernamePasswordAuthenticationToken(email, null,
+                    List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+        if (role != null && !User.Role.USER.name().equals(role)) {
+            // Elevated claims may have been revoked since the token was issued, on any node
+            User user = userService.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        }
+        // Lookup mode for USER tokens, or tokens without a role claim
+        UserDetails userDetails = userService.loadUserByUsername(email);
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
 }
@@ -0,0 +1,183 @@
+package com.kidora.service;
+
+import com.kidora.entity.Order;
+import com.kidora.entity.OrderItem;
+import com.kidora.repository.DailySalesRollupRepository;
+import com.kidora.repository.ProductSalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the dashboard aggregates in daily_sales_rollup and product_sales_rollup current as orders are
+ * placed and cancelled, so dashboard reads touch O(days) rows instead of scanning orders.
+ * Updates are additive upserts applied inside the order's transaction (always day row first, then
+ * products by id, so writers never deadlock). {@link #rebuild()} recomputes both tables from scratch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class DashboardRollupService {
+
+    private static final String UPSERT_DAY =
+            "INSERT INTO daily_sales_rollup (sales_date, order_count, revenue, items_sold, updated_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (sales_date) DO UPDATE SET " +
+            "order_count = daily_sales_rollup.order_count + EXCLUDED.order_count, " +
+            "revenue = daily_sales_rollup.revenue + EXCLUDED.revenue, " +
+            "items_sold = daily_sales_rollup.items_sold + EXCLUDED.items_sold, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String UPSERT_PRODUCT =
+            "INSERT INTO product_sales_rollup (product_id, product_title, quantity, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "product_title = COALESCE(EXCLUDED.product_title, product_sales_rollup.product_title), " +
+            "quantity = product_sales_rollup.quantity + EXCLUDED.quantity, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbc;
+    private final DailySalesRollupRepository dailyRepository;
+    private final ProductSalesRollupRepository productRepository;
+
+    public void recordOrderPlaced(Order order) {
+        apply(order, 1, order.getStatus() != Order.OrderStatus.CANCELLED ? 1 : 0);
+    }
+
+    // Cancelling takes the order's sales back out; reinstating a cancelled order adds them again
+    public void recordStatusChange(Order order, Order.OrderStatus previous, Order.OrderStatus current) {
+        boolean wasCancelled = previous == Order.OrderStatus.CANCELLED;
+        boolean isCancelled = current == Order.OrderStatus.CANCELLED;
+        if (wasCancelled != isCancelled) {
+            apply(order, 0, isCancelled ? -1 : 1);
+        }
+    }
+
+    private void apply(Order order, int orderDelta, int salesSign) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate day = (order.getCreatedAt() != null ? order.getCreatedAt() : now).toLocalDate();
+        List<OrderItem> items = order.getOrderItems() != null ? order.getOrderItems() : List.of();
+
+        long itemsSold = 0;
+        Map<Long, Long> quantities = new TreeMap<>();
+        Map<Long, String> titles = new TreeMap<>();
+        for (OrderItem item : items) {
+            itemsSold += item.getQuantity();
+            quantities.merge(item.getProduct().getId(), (long) item.getQuantity(), Long::sum);
+            titles.put(item.getProduct().getId(), item.getProductTitle());
+        }
+        BigDecimal revenue = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+
+        jdbc.update(UPSERT_DAY, day, orderDelta, revenue.multiply(BigDecimal.valueOf(salesSign)),
+                itemsSold * salesSign, now);
+        if (salesSign == 0 || quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>();
+        quantities.forEach((productId, qty) -> args.add(new Object[]{productId, titles.get(productId), qty * salesSign, now}));
+        jdbc.batchUpdate(UPSERT_PRODUCT, args);
+    }
+
+    /**
+     * Recomputes both rollup tables from orders. The tables are locked first, so in-flight order
+     * transactions either committed before the recount or apply their delta after it.
+     */
+    @Scheduled(cron = "${dashboard.rollup.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        jdbc.execute("LOCK TABLE daily_sales_rollup, product_sales_rollup IN EXCLUSIVE MODE");
+        jdbc.update("DELETE FROM daily_sales_rollup");
+        jdbc.update("DELETE FROM product_sales_rollup");
+        int days = jdbc.update(
+                "INSERT INTO daily_sales_rollup (sales_date, order_count, revenue, items_sold, updated_at) " +
+                "SELECT CAST(o.created_at AS date), COUNT(*), " +
+                "COALESCE(SUM(CASE WHEN o.status <> 'CANCELLED' THEN o.total_amount END), 0), " +
+                "COALESCE(SUM(CASE WHEN o.status <> 'CANCELLED' THEN i.qty END), 0), now() " +
+                "FROM orders o LEFT JOIN (SELECT order_id, SUM(quantity) AS qty FROM order_items GROUP BY order_id) i " +
+                "ON i.order_id = o.id " +
+                "WHERE o.created_at IS NOT NULL " +
+                "GROUP BY CAST(o.created_at AS date)");
+        int products = jdbc.update(
+                "INSERT INTO product_sales_rollup (product_id, product_title, quantity, updated_at) " +
+                "SELECT oi.product_id, MAX(oi.product_title), SUM(oi.quantity), now() " +
+                "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                "WHERE o.status <> 'CANCELLED' " +
+                "GROUP BY oi.product_id");
+        log.info("Dashboard rollups rebuilt: {} days, {} products in {} ms", days, products,
+                System.currentTimeMillis() - started);
+    }
+
+    // First start after the rollup tables were introduced: backfill from existing orders
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (dailyRepository.count() == 0
+                    && Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM orders)", Boolean.class))) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill dashboard rollups", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long ordersSince(LocalDate from) {
+        return dailyRepository.sumOrderCountSince(from);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal revenueSince(LocalDate from) {
+        return dailyRepository.sumRevenueSince(from);
+    }
+
+    @Transactional(readOnly = true)
+    public long itemsSoldSince(LocalDate from) {
+        return dailyRepository.sumItemsSoldSince(from);
+    }
+
+    @Transactional(readOnly = true)
+    public long totalOrders() {
+        return dailyRepository.sumOrderCount();
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal totalRevenue() {
+        return dailyRepository.sumRevenue();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> dailyRevenueSince(LocalDate from) {
+        return dailyRepository.findByDayGreaterThanEqualOrderByDayAsc(from).stream().map(r -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("day", r.getDay());
+            m.put("amount", r.getRevenue());
+            return m;
+        }).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> topProducts(int limit) {
+        return productRepository.findByQuantityGreaterThanOrderByQuantityDescProductIdAsc(0L, PageRequest.of(0, limit))
+                .stream().map(r -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("productId", r.getProductId());
+                    m.put("title", r.getProductTitle());
+                    m.put("quantity", r.getQuantity());
+                    return m;
+                }).toList();
+    }
+}
@@ -0,0 +1,194 @@
+package com.kidora.service;
+
+import com.kidora.entity.EmailOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the email outbox on the bounded "emailExecutor" pool. Each claimed batch goes out through one
+ * JavaMailSender.send(...) call, i.e. one SMTP connection per batch; failures are retried with backoff.
+ * Runs right after an enqueue commits and on a fixed poll for retries and anything missed.
+ */
+@Component
+@Slf4j
+public class EmailDispatcher {
+
+    private final EmailOutboxService outboxService;
+    private final JavaMailSender mailSender;
+    private final Executor executor;
+    private final int batchSize;
+    private final long retentionMillis;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder smtpNanos = new LongAdder();
+    private final LongAdder queueMillis = new LongAdder();
+    private final AtomicLong maxQueueMillis = new AtomicLong();
+
+    private final Timer smtpSent;
+    private final Timer smtpFailed;
+    private final Timer queueLatency;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    public EmailDispatcher(EmailOutboxService outboxService,
+                           JavaMailSender mailSender,
+                           @Qualifier("emailExecutor") Executor executor,
+                           MeterRegistry meterRegistry,
+                           @Value("${email.outbox.batch-size:20}") int batchSize,
+                           @Value("${email.outbox.retention:604800000}") long retentionMillis) {
+        this.outboxService = outboxService;
+        this.mailSender = mailSender;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.retentionMillis = retentionMillis;
+        this.smtpSent = smtpTimer(meterRegistry, "success");
+        this.smtpFailed = smtpTimer(meterRegistry, "failure");
+        this.queueLatency = Timer.builder("kidora.email.queue.latency")
+                .description("Time from outbox enqueue to SMTP delivery")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sentCounter = emailCounter(meterRegistry, "sent");
+        this.failedCounter = emailCounter(meterRegistry, "failed");
+    }
+
+    // One SMTP connection per batch, so this is the latency the mail server actually costs us
+    private static Timer smtpTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("kidora.email.smtp.send")
+                .description("JavaMailSender.send latency per outbox batch")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter emailCounter(MeterRegistry registry, String result) {
+        return Counter.builder("kidora.email.messages")
+                .description("Outbox emails by delivery result; failures are retried")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEnqueued(EmailOutboxService.EmailEnqueuedEvent event) {
+        nudge();
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:5000}")
+    public void poll() {
+        nudge();
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval:3600000}")
+    public void purgeSent() {
+        int purged = outboxService.purgeSentBefore(LocalDateTime.now().minus(Duration.ofMillis(retentionMillis)));
+        if (purged > 0) {
+            log.info("Purged {} sent emails from the outbox", purged);
+        }
+    }
+
+    // With the queue full the nudge is discarded (DiscardPolicy): busy workers pick the new rows up
+    public void nudge() {
+        executor.execute(this::drain);
+    }
+
+    // Claims and sends batches until nothing is due
+    public void drain() {
+        List<EmailOutbox> batch;
+        while (!(batch = outboxService.claim(batchSize)).isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        // Sent in claim order; failures come back keyed by message instance
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(email.getFromAddress());
+            message.setTo(email.getToAddress());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages.add(message);
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        long started = System.nanoTime();
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) {
+                messages.forEach(m -> failures.put(m, e));
+            }
+        } catch (Exception e) {
+            // Connection or authentication problem: nothing in the batch went out
+            messages.forEach(m -> failures.put(m, e));
+        }
+        long elapsed = System.nanoTime() - started;
+        smtpNanos.add(elapsed);
+        batches.increment();
+        (failures.isEmpty() ? smtpSent : smtpFailed).record(elapsed, TimeUnit.NANOSECONDS);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> delivered = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            Exception error = failures.get(messages.get(i));
+            if (error == null) {
+                delivered.add(email.getId());
+                long waited = Duration.between(email.getCreatedAt(), now).toMillis();
+                queueMillis.add(waited);
+                maxQueueMillis.accumulateAndGet(waited, Math::max);
+                queueLatency.record(waited, TimeUnit.MILLISECONDS);
+            } else {
+                log.warn("Email {} to {} failed (attempt {}): {}", email.getId(), email.getToAddress(),
+                        email.getAttempts(), error.getMessage());
+                outboxService.markFailed(email.getId(), error.getMessage());
+            }
+        }
+        if (!delivered.isEmpty()) {
+            outboxService.markSent(delivered);
+        }
+        sent.add(delivered.size());
+        failed.add(batch.size() - delivered.size());
+        sentCounter.increment(delivered.size());
+        failedCounter.increment(batch.size() - delivered.size());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(outboxService.stats());
+        long sentCount = sent.sum();
+        long batchCount = batches.sum();
+        stats.put("sent", sentCount);
+        stats.put("failedAttempts", failed.sum());
+        stats.put("batches", batchCount);
+        stats.put("avgSmtpBatchMs", batchCount == 0 ? 0.0 : smtpNanos.sum() / 1e6 / batchCount);
+        stats.put("avgQueueLatencyMs", sentCount == 0 ? 0.0 : (double) queueMillis.sum() / sentCount);
+        stats.put("maxQueueLatencyMs", maxQueueMillis.get());
+        return stats;
+    }
+}
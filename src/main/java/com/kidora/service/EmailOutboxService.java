@@ -0,0 +1,123 @@
+package com.kidora.service;
+
+import com.kidora.entity.EmailOutbox;
+import com.kidora.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent queue behind EmailService. Enqueueing is a plain insert in the caller's transaction, so a
+ * rolled-back request never sends mail and a committed one always does (eventually).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher events;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff:30000}")
+    private long backoffMillis;
+
+    @Value("${email.outbox.lease:120000}")
+    private long leaseMillis;
+
+    private static final String REDACTED = "[redacted]";
+
+    public EmailOutbox enqueue(String to, String from, String subject, String body) {
+        return enqueue(to, from, subject, body, false);
+    }
+
+    // sensitive: the body holds a secret that must not outlive its delivery, see EmailOutbox#sensitive
+    public EmailOutbox enqueue(String to, String from, String subject, String body, boolean sensitive) {
+        EmailOutbox email = new EmailOutbox();
+        email.setToAddress(to);
+        email.setFromAddress(from);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setSensitive(sensitive);
+        EmailOutbox saved = outboxRepository.save(email);
+        // Delivered to EmailDispatcher after commit (@TransactionalEventListener)
+        events.publishEvent(new EmailEnqueuedEvent(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Claims up to {@code limit} due emails. Claimed rows stay PENDING but are leased: their next attempt
+     * moves past the lease, so a worker that dies mid-send only delays them.
+     */
+    public List<EmailOutbox> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> due = outboxRepository.findDue(now, PageRequest.of(0, limit));
+        LocalDateTime leasedUntil = now.plus(Duration.ofMillis(leaseMillis));
+        for (EmailOutbox email : due) {
+            email.setAttempts(email.getAttempts() + 1);
+            email.setNextAttemptAt(leasedUntil);
+        }
+        return due;
+    }
+
+    public void markSent(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.findAllById(ids).forEach(email -> {
+            if (email.isSensitive()) {
+                outboxRepository.delete(email);
+                return;
+            }
+            email.setStatus(EmailOutbox.Status.SENT);
+            email.setSentAt(now);
+            email.setLastError(null);
+        });
+    }
+
+    // Exponential backoff (backoff * 2^(attempts-1)); gives up after max-attempts
+    public void markFailed(Long id, String error) {
+        outboxRepository.findById(id).ifPresent(email -> {
+            email.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.FAILED);
+                if (email.isSensitive()) {
+                    email.setBody(REDACTED);
+                }
+                log.error("Giving up on email {} to {} after {} attempts: {}", id, email.getToAddress(), email.getAttempts(), error);
+            } else {
+                long delay = backoffMillis << Math.min(email.getAttempts() - 1, 16);
+                email.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delay)));
+            }
+        });
+    }
+
+    public int purgeSentBefore(LocalDateTime before) {
+        return outboxRepository.deleteSentBefore(before);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+        stats.put("failed", outboxRepository.countByStatus(EmailOutbox.Status.FAILED));
+        LocalDateTime oldest = outboxRepository.oldestPending();
+        stats.put("oldestPendingAgeMs", oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        return stats;
+    }
+
+    public record EmailEnqueuedEvent(Long emailId) {
+    }
+}
@@ -3,68 +3,48 @@ package com.kidora.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Builds transactional emails and queues them in the outbox; EmailDispatcher does the SMTP work off the
+ * request thread, so callers never wait on (or fail because of) the mail server.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender javaMailSender;
+    private final EmailOutboxService outboxService;
 	@Value("${spring.mail.form-mail}")
 	private String formMail;
     public void sendOtpEmail(String toEmail, String otp, String purpose) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(formMail);
-            message.setTo(toEmail);
-            message.setSubject("Kidora - OTP Verification");
-            
-            String emailBody = String.format(
-                "Dear User,\n\n" +
-                "Your OTP for %s is: %s\n\n" +
-                "This OTP will expire in 5 minutes.\n\n" +
-                "If you didn't request this, please ignore this email.\n\n" +
-                "Best regards,\n" +
-                "Kidora Team",
-                purpose, otp
-            );
-            
-            message.setText(emailBody);
-            javaMailSender.send(message);
-            
-            log.info("OTP email sent successfully to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", toEmail, e);
-            throw new RuntimeException("Failed to send OTP email");
-        }
+        String emailBody = String.format(
+            "Dear User,\n\n" +
+            "Your OTP for %s is: %s\n\n" +
+            "This OTP will expire in 5 minutes.\n\n" +
+            "If you didn't request this, please ignore this email.\n\n" +
+            "Best regards,\n" +
+            "Kidora Team",
+            purpose, otp
+        );
+        
+        // Sensitive: the code is gone from the outbox as soon as the mail is out
+        outboxService.enqueue(toEmail, formMail, "Kidora - OTP Verification", emailBody, true);
+        log.info("OTP email queued for: {}", toEmail);
     }
     
     public void sendWelcomeEmail(String toEmail, String name) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom("noreply@kidora.com");
-            message.setTo(toEmail);
-            message.setSubject("Welcome to Kidora!");
-            
-            String emailBody = String.format(
-                "Dear %s,\n\n" +
-                "Welcome to Kidora! Your account has been successfully created.\n\n" +
-                "You can now start shopping for amazing kids' products.\n\n" +
-                "Happy Shopping!\n\n" +
-                "Best regards,\n" +
-                "Kidora Team",
-                name != null ? name : "Customer"
-            );
-            
-            message.setText(emailBody);
-            javaMailSender.send(message);
-            
-            log.info("Welcome email sent successfully to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send welcome email to: {}", toEmail, e);
-        }
+        String emailBody = String.format(
+            "Dear %s,\n\n" +
+            "Welcome to Kidora! Your account has been successfully created.\n\n" +
+            "You can now start shopping for amazing kids' products.\n\n" +
+            "Happy Shopping!\n\n" +
+            "Best regards,\n" +
+            "Kidora Team",
+            name != null ? name : "Customer"
+        );
+        
+        outboxService.enqueue(toEmail, "noreply@kidora.com", "Welcome to Kidora!", emailBody);
+        log.info("Welcome email queued for: {}", toEmail);
     }
 }
@@ -0,0 +1,266 @@
+package com.kidora.service;
+
+import com.kidora.entity.Product;
+import com.kidora.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders downscaled copies of product main images (thumb, card, detail) on the bounded "imageExecutor"
+ * pool, using only ImageIO/Java2D: JPEG for opaque images, PNG when there is transparency.
+ * Variants are stored next to the original as &lt;name&gt;@&lt;variant&gt;.&lt;ext&gt;, so rendering is idempotent, and
+ * recorded in Product.imageVariants. Originals narrower than a variant are not upscaled.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    public enum Variant {
+        THUMB("thumb", 160),
+        CARD("card", 480),
+        DETAIL("detail", 1200);
+
+        private final String key;
+        private final int width;
+
+        Variant(String key, int width) {
+            this.key = key;
+            this.width = width;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public int width() {
+            return width;
+        }
+    }
+
+    private final LocalObjectStorageService storage;
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final Executor executor;
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+
+    public ImageVariantService(LocalObjectStorageService storage,
+                               ProductService productService,
+                               ProductRepository productRepository,
+                               @Qualifier("imageExecutor") Executor executor,
+                               @Value("${image.variants.max-pixels:50000000}") long maxPixels,
+                               @Value("${image.variants.jpeg-quality:0.82}") float jpegQuality) {
+        this.storage = storage;
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.executor = executor;
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    // Queues variant rendering for the product's current main image; returns immediately
+    public void generateFor(Product product) {
+        if (product == null || product.getId() == null || storedName(product.getMainImage()) == null) {
+            return;
+        }
+        Long id = product.getId();
+        String sourceUrl = product.getMainImage();
+        try {
+            executor.execute(() -> generate(id, sourceUrl));
+        } catch (TaskRejectedException e) {
+            // Queue full: the product keeps serving its original until the next backfill
+            rejected.increment();
+            log.warn("Image variant queue full, skipping product {}", id);
+        }
+    }
+
+    // Re-queues every active product that has no variants yet (older products, rejected or failed jobs)
+    public int backfill() {
+        List<Long> ids = productRepository.findActiveIdsWithoutImageVariants();
+        for (Long id : ids) {
+            productRepository.findById(id).ifPresent(this::generateFor);
+        }
+        return ids.size();
+    }
+
+    void generate(Long productId, String sourceUrl) {
+        try {
+            Map<String, String> variants = render(sourceUrl);
+            if (!variants.isEmpty() && !productService.updateImageVariants(productId, sourceUrl, variants)) {
+                log.debug("Main image of product {} changed while rendering variants", productId);
+            }
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Could not render image variants for product {} from {}: {}", productId, sourceUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * Renders (or reuses) every variant narrower than the original.
+     * @return variant key to URL, built by swapping the stored name at the end of {@code sourceUrl}
+     */
+    Map<String, String> render(String sourceUrl) throws IOException {
+        String name = storedName(sourceUrl);
+        ObjectStorage.ObjectInfo source = name != null ? storage.stat(name) : null;
+        if (source == null) {
+            throw new IOException("not a stored upload");
+        }
+        String urlPrefix = sourceUrl.substring(0, sourceUrl.length() - name.length());
+        String baseName = stripExtension(name);
+
+        long started = System.nanoTime();
+        BufferedImage original = null;
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (Variant variant : Variant.values()) {
+            if (original == null) {
+                original = read(source);
+            }
+            if (original.getWidth() <= variant.width()) {
+                break;
+            }
+            boolean alpha = original.getColorModel().hasAlpha();
+            String variantName = baseName + "@" + variant.key() + (alpha ? ".png" : ".jpg");
+            if (!storage.exists(variantName)) {
+                BufferedImage scaled = scale(original, variant.width(), alpha);
+                storage.storeDerived(variantName, encode(scaled, alpha));
+                rendered.increment();
+            } else {
+                reused.increment();
+            }
+            urls.put(variant.key(), urlPrefix + variantName);
+        }
+        renderNanos.add(System.nanoTime() - started);
+        return urls;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = rendered.sum();
+        stats.put("rendered", count);
+        stats.put("reused", reused.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgRenderMs", count == 0 ? 0.0 : renderNanos.sum() / 1e6 / count);
+        return stats;
+    }
+
+    // Decodes with source subsampling for very large originals, so a 6000px photo never needs full-size pixels in memory
+    private BufferedImage read(ObjectStorage.ObjectInfo source) throws IOException {
+        try (InputStream content = storage.open(source.key(), 0, source.size());
+             ImageInputStream in = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (Variant.DETAIL.width() * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves repeatedly, then one bilinear pass to the exact width: close to area-averaging quality at a fraction of the cost
+    static BufferedImage scale(BufferedImage source, int targetWidth, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (!alpha) {
+                    // JPEG has no transparency; flatten onto white instead of black
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", bytes);
+            return bytes.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // Stored name of an uploaded original, else null (external images, variants)
+    private String storedName(String url) {
+        String name = storage.storedNameOf(url);
+        return name == null || name.equals(url) || name.isEmpty() || name.contains("@") ? null : name;
+    }
+
+    private static String stripExtension(String name) {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        return dot > slash ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,160 @@
+package com.kidora.service;
+
+import com.kidora.entity.Otp;
+import com.kidora.util.HierarchicalTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * OTPs in a concurrent map keyed by email and type, so issuing and verifying never touch the database.
+ * Expiry is driven by timing wheels sharded by key (one lock per shard) and advanced every tick.
+ * With write-behind enabled every change is replayed to the otps table on a single background thread,
+ * and a code missing from memory (issued on another node) is checked against the table instead.
+ * The table is then the arbiter: a code matched in memory only verifies once its row is marked used too,
+ * so a code already used through another node cannot be replayed here. That costs one synchronous
+ * statement per verification; without write-behind (single node) verification stays database-free.
+ */
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final Otp.OtpType[] TYPES = Otp.OtpType.values();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<String>[] shards;
+    private final int maxEntries;
+    private final JpaOtpStore database;
+    private final ThreadPoolExecutor writeBehind;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryOtpStore(int shardCount, long tickMillis, int maxEntries, JpaOtpStore database, boolean writeBehind) {
+        this.shards = new HierarchicalTimingWheel[shardCount];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new HierarchicalTimingWheel<>(tickMillis, now);
+        }
+        this.maxEntries = maxEntries;
+        this.database = database;
+        // One thread keeps the replay in issue order; a full queue makes the caller write synchronously
+        this.writeBehind = writeBehind
+                ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10_000),
+                        r -> new Thread(r, "otp-write-behind"), new ThreadPoolExecutor.CallerRunsPolicy())
+                : null;
+    }
+
+    @Override
+    public void save(String email, Otp.OtpType type, String code, LocalDateTime expiresAt) {
+        String key = key(email, type);
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            throw new RuntimeException("Too many pending verification codes, please try again shortly");
+        }
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        entries.put(key, new Entry(code, expiresAtMillis));
+        HierarchicalTimingWheel<String> wheel = shard(key);
+        synchronized (wheel) {
+            wheel.schedule(key, expiresAtMillis);
+        }
+        if (writeBehind != null) {
+            writeBehind.execute(() -> replay(() -> database.save(email, type, code, expiresAt)));
+        }
+    }
+
+    @Override
+    public boolean consume(String email, String code) {
+        long now = System.currentTimeMillis();
+        for (Otp.OtpType type : TYPES) {
+            String key = key(email, type);
+            Entry entry = entries.get(key);
+            // remove(key, entry) succeeds for exactly one concurrent caller
+            if (entry != null && entry.expiresAtMillis > now && entry.matches(code) && entries.remove(key, entry)) {
+                return writeBehind == null || consumeInDatabase(email, code);
+            }
+        }
+        return writeBehind != null && consumeInDatabase(email, code);
+    }
+
+    // Waits for this node's pending replays first, so the row of a code issued here exists
+    private boolean consumeInDatabase(String email, String code) {
+        try {
+            writeBehind.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("OTP write-behind did not drain before a verification", e);
+            return false;
+        }
+        return database.consume(email, code);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.store.tick:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (HierarchicalTimingWheel<String> wheel : shards) {
+            synchronized (wheel) {
+                expired += wheel.advance(now, key -> entries.computeIfPresent(key,
+                        (k, entry) -> entry.expiresAtMillis <= now ? null : entry));
+            }
+        }
+        if (expired > 0) {
+            log.debug("OTP wheel fired {} expirations, {} codes pending", expired, entries.size());
+        }
+    }
+
+    @Override
+    public void purgeExpired() {
+        tick();
+        if (writeBehind != null) {
+            database.purgeExpired();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+            writeBehind.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private HierarchicalTimingWheel<String> shard(String key) {
+        return shards[(key.hashCode() & 0x7fffffff) % shards.length];
+    }
+
+    private static String key(String email, Otp.OtpType type) {
+        return email + '|' + type.name();
+    }
+
+    private static void replay(Runnable write) {
+        try {
+            write.run();
+        } catch (Exception e) {
+            log.error("OTP write-behind failed", e);
+        }
+    }
+
+    private record Entry(String code, long expiresAtMillis) {
+        // Constant time, so response timing does not leak how many leading digits matched
+        boolean matches(String candidate) {
+            return candidate != null && MessageDigest.isEqual(
+                    code.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.kidora.service;
+
+import com.kidora.entity.Otp;
+import com.kidora.repository.OtpRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * OTPs as rows in the otps table. Used directly with otp.store=database, and by
+ * {@link InMemoryOtpStore} for write-behind and as the fallback when a code was issued on another node.
+ */
+@RequiredArgsConstructor
+@Transactional
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    public void save(String email, Otp.OtpType type, String code, LocalDateTime expiresAt) {
+        otpRepository.deleteByEmailAndType(email, type);
+        Otp otp = new Otp();
+        otp.setEmail(email);
+        otp.setOtpCode(code);
+        otp.setType(type);
+        otp.setExpiryTime(expiresAt);
+        otpRepository.save(otp);
+    }
+
+    @Override
+    public boolean consume(String email, String code) {
+        var otpOpt = otpRepository.findByEmailAndOtpCodeAndUsedFalseAndExpiryTimeAfter(email, code, LocalDateTime.now());
+        return otpOpt.isPresent() && otpRepository.markUsed(otpOpt.get().getId()) == 1;
+    }
+
+    @Override
+    public void purgeExpired() {
+        otpRepository.deleteByExpiryTimeBefore(LocalDateTime.now());
+    }
+}
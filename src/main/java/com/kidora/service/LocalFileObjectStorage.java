@@ -0,0 +1,222 @@
+package com.kidora.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Objects as files under a directory (file.local-upload-dir). Staging writes temp files under .tmp/;
+ * commit fsyncs them, renames them into place and fsyncs each touched directory once per batch.
+ * Only one node can serve these files; use the S3 backend when running several.
+ */
+@Slf4j
+public class LocalFileObjectStorage implements ObjectStorage {
+
+    private static final String TMP_DIR = ".tmp";
+
+    private final Path root;
+    private final Path tmp;
+
+    public LocalFileObjectStorage(String directory) throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        this.tmp = root.resolve(TMP_DIR);
+        Files.createDirectories(tmp);
+    }
+
+    @Override
+    public Upload stage(String key, InputStream content, long size, String contentType) throws IOException {
+        Path target = resolve(key);
+        Path part = tmp.resolve(UUID.randomUUID() + ".part");
+        try {
+            Files.copy(content, part);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        return new LocalUpload(key, part, target);
+    }
+
+    // Data first, then names: fsync every temp file, rename into place, fsync each directory once
+    @Override
+    public void commit(List<Upload> uploads) throws IOException {
+        for (Upload upload : uploads) {
+            fsync(((LocalUpload) upload).part());
+        }
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Upload upload : uploads) {
+            LocalUpload local = (LocalUpload) upload;
+            Files.createDirectories(local.target().getParent());
+            Files.move(local.part(), local.target(), StandardCopyOption.ATOMIC_MOVE);
+            directories.add(local.target().getParent());
+        }
+        for (Path directory : directories) {
+            fsyncDirectory(directory);
+        }
+    }
+
+    @Override
+    public void abort(Upload upload) {
+        try {
+            Files.deleteIfExists(((LocalUpload) upload).part());
+        } catch (IOException e) {
+            log.warn("Could not delete staged upload for {}: {}", upload.key(), e.getMessage());
+        }
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        Path path = localFile(key);
+        if (path == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new ObjectInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new LimitedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void list(String prefix, boolean recursive, Consumer<ObjectInfo> consumer) throws IOException {
+        Path dir = resolve(prefix);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        if (!recursive) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+                for (Path path : stream) {
+                    consumer.accept(info(path));
+                }
+            }
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                if (!path.startsWith(tmp) && Files.isRegularFile(path)) {
+                    consumer.accept(info(path));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void purgeStaleUploads(Instant before) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tmp)) {
+            for (Path path : stream) {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(before)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Path localFile(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tmp) || !Files.isRegularFile(path)) {
+            return null;
+        }
+        return path;
+    }
+
+    private ObjectInfo info(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new ObjectInfo(root.relativize(path).toString().replace('\\', '/'), attributes.size(),
+                attributes.lastModifiedTime().toInstant());
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tmp)) {
+            throw new RuntimeException("Invalid path: " + key);
+        }
+        return path;
+    }
+
+    private static void fsync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // Makes renames durable; not every platform can open a directory, which then is best effort
+    private static void fsyncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not fsync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private record LocalUpload(String key, Path part, Path target) implements Upload {
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
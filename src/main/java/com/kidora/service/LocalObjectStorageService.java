@@ -1,62 +1,574 @@
 package com.kidora.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
+/**
+ * Upload store on top of an {@link ObjectStorage} backend (local directory or S3 bucket, see storage.backend).
+ * In content-addressed mode (the default) a file is named by the SHA-256 of its bytes and fanned out as
+ * ab/cd/&lt;sha256&gt;.ext, with a reference count per object in stored_objects: uploading bytes that are
+ * already stored only bumps the count, nothing is written. Legacy flat UUID names keep working for reads and deletes.
+ */
 @Service
+@Slf4j
 public class LocalObjectStorageService {
-	private final Path fileStorageLocation;
+	private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,8}");
+	private static final Pattern OBJECT_KEY = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(\\.[a-z0-9]{1,8})?");
+	private static final String UPLOAD_PATH = "/uploads/products/";
+
+	private static final String ACQUIRE =
+			"INSERT INTO stored_objects (object_key, size_bytes, ref_count, created_at, last_referenced_at) VALUES (?, ?, 1, now(), now()) " +
+			"ON CONFLICT (object_key) DO UPDATE SET ref_count = stored_objects.ref_count + 1, last_referenced_at = now()";
+	private static final String RELEASE =
+			"UPDATE stored_objects SET ref_count = ref_count - 1 WHERE object_key = ? AND ref_count > 0";
+	// Transaction-scoped, so it is let go at commit or rollback; a hashtext collision only serializes two keys
+	private static final String LOCK_KEY = "SELECT pg_advisory_xact_lock(hashtext(?))";
+	private static final String DELETE_UNREFERENCED =
+			"DELETE FROM stored_objects WHERE object_key = ? AND ref_count = 0";
+
+	private final ObjectStorage backend;
+	private final JdbcTemplate jdbc;
+	private final boolean contentAddressed;
+	private final String publicBaseUrl;
+	private final Executor uploadExecutor;
+	// Joins the caller's transaction or opens a short one, see withKeyLock
+	private final TransactionTemplate keyTransactions;
+
+	private final LongAdder stored = new LongAdder();
+	private final LongAdder deduplicated = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder bytesSaved = new LongAdder();
+	private final Timer storeSucceeded;
+	private final Timer storeFailed;
+	private final DistributionSummary uploadWritten;
+	private final DistributionSummary uploadDeduplicated;
+
+	public LocalObjectStorageService(ObjectStorage backend,
+									 @Value("${file.storage.content-addressed:true}") boolean contentAddressed,
+									 @Value("${file.public-base-url:}") String publicBaseUrl,
+									 JdbcTemplate jdbc,
+									 PlatformTransactionManager transactionManager,
+									 @Qualifier("uploadExecutor") Executor uploadExecutor,
+									 MeterRegistry meterRegistry) {
+		this.backend = backend;
+		this.contentAddressed = contentAddressed;
+		this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl.isEmpty() ? "" : publicBaseUrl + "/";
+		this.jdbc = jdbc;
+		this.uploadExecutor = uploadExecutor;
+		this.keyTransactions = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+		this.storeSucceeded = storeTimer(meterRegistry, "success");
+		this.storeFailed = storeTimer(meterRegistry, "failure");
+		this.uploadWritten = uploadSummary(meterRegistry, "written");
+		this.uploadDeduplicated = uploadSummary(meterRegistry, "deduplicated");
+	}
+
+	private static Timer storeTimer(MeterRegistry registry, String outcome) {
+		return Timer.builder("kidora.storage.store")
+				.description("Latency of storing one upload batch, hashing and backend commit included")
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	// Written parts cost backend I/O, deduplicated ones only a hash pass and a stored_objects upsert
+	private static DistributionSummary uploadSummary(MeterRegistry registry, String result) {
+		return DistributionSummary.builder("kidora.storage.upload.bytes")
+				.description("Size of uploaded parts")
+				.baseUnit("bytes")
+				.tag("result", result)
+				.register(registry);
+	}
 	
-	public LocalObjectStorageService(@Value("${file.local-upload-dir}") String uploadDir) throws Exception {
-		this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+	/**
+	 * Stores the upload and returns its name relative to the upload directory (and to /uploads/products/).
+	 * Every call takes one reference on the stored object; see {@link #release(String)}.
+	 */
+	public String storeFile(MultipartFile file) {
+		return storeFiles(List.of(file)).get(0);
+	}
+
+	/**
+	 * Stores a batch of uploads, names returned in input order. Parts are streamed to the backend in
+	 * parallel on the upload executor and committed together once all of them are staged. If any part
+	 * fails, nothing of the batch is kept.
+	 */
+	public List<String> storeFiles(List<MultipartFile> files) {
+		long started = System.nanoTime();
+		boolean succeeded = false;
 		try {
-			Files.createDirectories(this.fileStorageLocation);
-		} catch (Exception ex) {
-			throw new Exception("Could not create the directory for local storage.");
+			List<String> names = storeBatch(files);
+			succeeded = true;
+			return names;
+		} finally {
+			(succeeded ? storeSucceeded : storeFailed).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
 		}
 	}
-	
-	public String storeFile(MultipartFile file) {
-		String original = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+
+	private List<String> storeBatch(List<MultipartFile> files) {
+		List<Staged> staged = contentAddressed ? stageContentAddressed(files) : inParallel(files, this::stage, this::discard);
+		try {
+			backend.commit(staged.stream().map(Staged::upload).filter(Objects::nonNull).toList());
+		} catch (IOException e) {
+			discard(staged);
+			throw new RuntimeException("Could not store files: " + e.getMessage());
+		}
+		return staged.stream().map(Staged::name).toList();
+	}
+
+	/**
+	 * Hashing and uploads run on the upload executor, every stored_objects statement on the calling thread.
+	 * A worker never checks out a pooled connection, so a burst of batches cannot leave callers that hold
+	 * one waiting on workers that wait for another.
+	 */
+	private List<Staged> stageContentAddressed(List<MultipartFile> files) {
+		List<Part> parts = inParallel(files, this::hash, done -> { });
+		// Key order, so two batches holding their locks until commit never wait on each other in a cycle
+		List<Integer> lockOrder = IntStream.range(0, parts.size()).boxed()
+				.sorted(Comparator.comparing(i -> parts.get(i).key()))
+				.toList();
+		Part[] referenced = new Part[parts.size()];
 		try {
-			if (original.contains("..")) {
-				throw new RuntimeException("Invalid path sequence in filename: " + original);
-			}
-			String ext = "";
-			int dot = original.lastIndexOf('.');
-			if (dot >= 0) ext = original.substring(dot);
-			String uniqueName = UUID.randomUUID().toString() + ext;
-			Path targetLocation = this.fileStorageLocation.resolve(uniqueName);
-			Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-			return uniqueName;
+			for (int i : lockOrder) {
+				referenced[i] = acquire(parts.get(i));
+			}
+			return inParallel(Arrays.asList(referenced), this::upload, this::abortUploads);
+		} catch (RuntimeException e) {
+			for (Part part : referenced) {
+				if (part != null) {
+					release(part.key());
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs {@code task} over {@code inputs} on the upload executor (inline for a single input), results in
+	 * input order. If any fails, the results that did complete go to {@code undo} and the first failure is thrown.
+	 */
+	private <I, O> List<O> inParallel(List<I> inputs, Function<I, O> task, Consumer<List<O>> undo) {
+		List<CompletableFuture<O>> pending = new ArrayList<>(inputs.size());
+		for (I input : inputs) {
+			pending.add(inputs.size() == 1
+					? CompletableFuture.completedFuture(task.apply(input))
+					: CompletableFuture.supplyAsync(() -> task.apply(input), uploadExecutor));
+		}
+		List<O> results = new ArrayList<>(inputs.size());
+		RuntimeException failure = null;
+		for (CompletableFuture<O> future : pending) {
+			try {
+				results.add(future.join());
+			} catch (CompletionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			undo.accept(results);
+			throw failure;
+		}
+		return results;
+	}
+
+	// Parallel part of a legacy store: validates the name and streams the part to the backend under a fresh UUID
+	private Staged stage(MultipartFile file) {
+		String original = originalName(file);
+		try {
+			String uniqueName = UUID.randomUUID().toString() + extensionOf(original);
+			ObjectStorage.Upload upload;
+			try (InputStream in = file.getInputStream()) {
+				upload = backend.stage(uniqueName, in, file.getSize(), file.getContentType());
+			}
+			stored.increment();
+			bytesWritten.add(file.getSize());
+			uploadWritten.record(file.getSize());
+			return new Staged(uniqueName, upload);
 		} catch (IOException ex) {
 			throw new RuntimeException("Could not store file " + original + ": " + ex.getMessage());
 		}
 	}
 
+	// Pass 1 of a content-addressed store: only reads the part, to name it by its hash
+	private Part hash(MultipartFile file) {
+		String original = originalName(file);
+		String extension = extensionOf(original).toLowerCase(Locale.ROOT);
+		if (!EXTENSION.matcher(extension).matches()) {
+			extension = "";
+		}
+		try (InputStream in = file.getInputStream()) {
+			String hash = sha256(in);
+			String key = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extension;
+			return new Part(file, original, hash, key);
+		} catch (IOException ex) {
+			throw new RuntimeException("Could not store file " + original + ": " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Takes this part's reference, on the calling thread. The lock covers only the count: a release or
+	 * collect that got the lock first has already deleted the object (so the stat in upload finds nothing and
+	 * writes it again), one that comes later sees our reference and keeps it.
+	 */
+	private Part acquire(Part part) {
+		try {
+			withKeyLock(part.key(), () -> jdbc.update(ACQUIRE, part.key(), part.file().getSize()));
+			return part;
+		} catch (IOException ex) {
+			throw new RuntimeException("Could not store file " + part.original() + ": " + ex.getMessage());
+		}
+	}
+
+	// Pass 2, on the upload executor with no lock or connection held: new content is streamed to the backend
+	// while re-checking the hash
+	private Staged upload(Part part) {
+		long size = part.file().getSize();
+		ObjectStorage.Upload upload = null;
+		try {
+			if (backend.stat(part.key()) != null) {
+				deduplicated.increment();
+				bytesSaved.add(size);
+				uploadDeduplicated.record(size);
+				return new Staged(part.key(), null);
+			}
+			// A concurrent store of the same bytes just publishes identical content over ours
+			MessageDigest digest = newDigest();
+			try (InputStream in = new DigestInputStream(part.file().getInputStream(), digest)) {
+				upload = backend.stage(part.key(), in, size, part.file().getContentType());
+			}
+			if (!part.hash().equals(HexFormat.of().formatHex(digest.digest()))) {
+				throw new IOException("upload changed while it was being stored");
+			}
+		} catch (IOException | RuntimeException e) {
+			if (upload != null) {
+				abortUploads(List.of(new Staged(part.key(), upload)));
+			}
+			throw e instanceof RuntimeException re ? re
+					: new RuntimeException("Could not store file " + part.original() + ": " + e.getMessage());
+		}
+		stored.increment();
+		bytesWritten.add(size);
+		uploadWritten.record(size);
+		return new Staged(part.key(), upload);
+	}
+
+	private static String originalName(MultipartFile file) {
+		String original = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+		if (original.contains("..")) {
+			throw new RuntimeException("Invalid path sequence in filename: " + original);
+		}
+		return original;
+	}
+
+	private static String extensionOf(String name) {
+		int dot = name.lastIndexOf('.');
+		return dot >= 0 ? name.substring(dot) : "";
+	}
+
+	private void abortUploads(List<Staged> staged) {
+		for (Staged s : staged) {
+			try {
+				if (s.upload() != null) {
+					backend.abort(s.upload());
+				}
+			} catch (RuntimeException e) {
+				log.warn("Could not abort upload of {}: {}", s.name(), e.getMessage());
+			}
+		}
+	}
+
+	// Undoes a failed batch: staged content goes, references taken are dropped, legacy files are deleted
+	private void discard(List<Staged> staged) {
+		for (Staged s : staged) {
+			try {
+				if (s.upload() != null) {
+					backend.abort(s.upload());
+				}
+				if (contentAddressed) {
+					release(s.name());
+				} else {
+					backend.delete(s.name());
+				}
+			} catch (IOException | RuntimeException e) {
+				log.warn("Could not roll back stored file {}: {}", s.name(), e.getMessage());
+			}
+		}
+	}
+
+	private record Staged(String name, ObjectStorage.Upload upload) {
+	}
+
+	private record Part(MultipartFile file, String original, String hash, String key) {
+	}
+
+	/**
+	 * Drops one reference taken by {@link #storeFile}; accepts a stored name or a full /uploads/products/ URL.
+	 * The object is deleted when its last reference goes. Legacy flat names are deleted directly.
+	 * Only for explicit deletes and failed stores: an image URL can be copied into banners and order items,
+	 * so entity edits leave unused images to {@link UploadGarbageCollector}.
+	 * @return true if a file was deleted
+	 */
+	public boolean release(String nameOrUrl) {
+		String name = storedNameOf(nameOrUrl);
+		if (name == null) {
+			return false;
+		}
+		if (!isContentAddressed(name)) {
+			try {
+				return backend.delete(name);
+			} catch (IOException | RuntimeException e) {
+				log.warn("Could not delete {}: {}", name, e.getMessage());
+				return false;
+			}
+		}
+		try {
+			// The object goes before the row is committed: a failed delete rolls the reference back, or inside
+			// a caller's transaction leaves the object to UploadGarbageCollector
+			return withKeyLock(name, () -> {
+				jdbc.update(RELEASE, name);
+				return jdbc.update(DELETE_UNREFERENCED, name) > 0 && backend.delete(name);
+			});
+		} catch (IOException e) {
+			log.warn("Could not delete unreferenced object {}: {}", name, e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Removes a file the upload collector found unreferenced. A content-addressed object stored or
+	 * re-referenced after {@code touchedBefore} is kept, since its new reference may postdate the mark.
+	 * @return bytes reclaimed (or reclaimable, on a dry run), -1 if the file was kept
+	 */
+	public long collect(String name, Instant touchedBefore, boolean dryRun) throws IOException {
+		if (!isContentAddressed(name)) {
+			// Legacy and derived names are never re-stored under the same name, so there is nothing to race
+			return collectUnlocked(name, dryRun);
+		}
+		return withKeyLock(name, () -> {
+			List<Timestamp> touched = jdbc.queryForList(
+					"SELECT last_referenced_at FROM stored_objects WHERE object_key = ?", Timestamp.class, name);
+			if (!touched.isEmpty() && touched.get(0) != null && touched.get(0).toInstant().isAfter(touchedBefore)) {
+				return -1L;
+			}
+			if (!dryRun) {
+				jdbc.update("DELETE FROM stored_objects WHERE object_key = ?", name);
+			}
+			return collectUnlocked(name, dryRun);
+		});
+	}
+
+	private long collectUnlocked(String name, boolean dryRun) throws IOException {
+		ObjectStorage.ObjectInfo info = backend.stat(name);
+		if (info == null) {
+			return -1;
+		}
+		if (!dryRun) {
+			backend.delete(name);
+		}
+		return info.size();
+	}
+
+	/**
+	 * Writes a file derived from a stored upload (e.g. an image variant) under {@code name}.
+	 * Derived names are deterministic, so an existing file is kept as is.
+	 * @return false if the file already existed
+	 */
+	public boolean storeDerived(String name, byte[] bytes) throws IOException {
+		if (backend.stat(name) != null) {
+			return false;
+		}
+		backend.put(name, bytes, name.endsWith(".png") ? "image/png" : "image/jpeg");
+		bytesWritten.add(bytes.length);
+		return true;
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("backend", backend.getClass().getSimpleName());
+		stats.put("contentAddressed", contentAddressed);
+		stats.put("stored", stored.sum());
+		stats.put("deduplicated", deduplicated.sum());
+		stats.put("bytesWritten", bytesWritten.sum());
+		stats.put("bytesSaved", bytesSaved.sum());
+		return stats;
+	}
+
+	// Size and modification time of a stored file, or null if there is none
+	public ObjectStorage.ObjectInfo stat(String name) throws IOException {
+		return name == null || name.isBlank() ? null : backend.stat(name);
+	}
+
+	public boolean exists(String name) {
+		try {
+			return stat(name) != null;
+		} catch (IOException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	// {@code length} bytes of a stored file from {@code offset}
+	public InputStream open(String name, long offset, long length) throws IOException {
+		return backend.read(name, offset, length);
+	}
+
+	// The file behind a stored name when the backend is a local directory (zero-copy serving), else null
+	public Path localFile(String name) {
+		return backend.localFile(name);
+	}
+
+	public void list(String prefix, boolean recursive, Consumer<ObjectStorage.ObjectInfo> consumer) throws IOException {
+		backend.list(prefix, recursive, consumer);
+	}
+
+	public void purgeStaleUploads(Instant before) throws IOException {
+		backend.purgeStaleUploads(before);
+	}
+
+	/**
+	 * Public URL of a stored name: file.public-base-url + name when set (a CDN or the bucket), else this
+	 * application's /uploads/products/ endpoint for the current request.
+	 */
+	public String publicUrl(String name) {
+		if (!publicBaseUrl.isEmpty()) {
+			return publicBaseUrl + name;
+		}
+		return ServletUriComponentsBuilder.fromCurrentContextPath()
+				.path(UPLOAD_PATH)
+				.path(name)
+				.toUriString();
+	}
+
+	/**
+	 * "ab/cd/&lt;hash&gt;.jpg" from either that name, a URL ending in /uploads/products/ab/cd/&lt;hash&gt;.jpg or one
+	 * under file.public-base-url; null for empty values and images hosted elsewhere.
+	 */
+	public String storedNameOf(String nameOrUrl) {
+		if (nameOrUrl == null || nameOrUrl.isBlank()) {
+			return null;
+		}
+		if (!publicBaseUrl.isEmpty() && nameOrUrl.startsWith(publicBaseUrl)) {
+			return nameOrUrl.substring(publicBaseUrl.length());
+		}
+		int marker = nameOrUrl.indexOf(UPLOAD_PATH);
+		if (marker >= 0) {
+			return nameOrUrl.substring(marker + UPLOAD_PATH.length());
+		}
+		return nameOrUrl.startsWith("http://") || nameOrUrl.startsWith("https://") ? null : nameOrUrl;
+	}
+
+	// Content-addressed names carry the SHA-256 of their bytes
+	public static boolean isContentAddressed(String name) {
+		return name != null && OBJECT_KEY.matcher(name).matches();
+	}
+
+	/**
+	 * Runs a reference change on a content-addressed key under a Postgres advisory lock, so acquire,
+	 * release+delete and collect+delete of the same key are serialized across every node sharing the
+	 * database and bucket. Uploads and existence checks stay outside; the delete is the one backend call
+	 * inside, since a store that acquired right after the count hit zero would otherwise trust an object
+	 * that is about to go. The lock is taken on the caller's connection: inside a caller's transaction it
+	 * joins it and is held until that commits, otherwise a short transaction is opened and committed before
+	 * the lock is let go. Never a second pooled connection per key, so callers cannot starve each other.
+	 */
+	private <T> T withKeyLock(String key, KeyLocked<T> work) throws IOException {
+		List<IOException> failure = new ArrayList<>(1);
+		T result = keyTransactions.execute(status -> {
+			jdbc.query(LOCK_KEY, (ResultSetExtractor<Void>) rs -> null, key);
+			try {
+				return work.run();
+			} catch (IOException e) {
+				// Our own transaction rolls the reference change back; a joined one is the caller's to decide
+				if (status.isNewTransaction()) {
+					status.setRollbackOnly();
+				}
+				failure.add(e);
+				return null;
+			}
+		});
+		if (!failure.isEmpty()) {
+			throw failure.get(0);
+		}
+		return result;
+	}
+
+	@FunctionalInterface
+	private interface KeyLocked<T> {
+		T run() throws IOException;
+	}
+
+	static String sha256(InputStream in) throws IOException {
+		MessageDigest digest = newDigest();
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	public byte[] getFileAsBytes(String fileName) {
 		try {
-			Path filePath = fileStorageLocation.resolve(fileName).normalize();
-			// Read the file into a byte array
-			byte[] fileBytes = Files.readAllBytes(filePath);
-			return fileBytes;
+			ObjectStorage.ObjectInfo info = backend.stat(fileName);
+			if (info == null) {
+				throw new RuntimeException("File not found: " + fileName);
+			}
+			try (InputStream in = backend.read(fileName, 0, info.size())) {
+				return in.readAllBytes();
+			}
 		} catch (IOException ex) {
 			// Handle the exception by throwing a LocalStorageException
 			throw new RuntimeException("Could not read the file: " + fileName + ":::: " + ex.getMessage());
@@ -65,21 +577,17 @@ public class LocalObjectStorageService {
 
 	public Resource loadFileAsResource(String fileName) {
 		try {
-			// Resolve the file path
-			Path filePath = fileStorageLocation.resolve(fileName).normalize();
-			
-			// Create a UrlResource from the file path
-			Resource resource = new UrlResource(filePath.toUri());
-			
-			// Check if the resource exists
-			if (resource.exists()) {
-				return resource;
-			} else {
+			Path local = backend.localFile(fileName);
+			if (local != null) {
+				return new FileSystemResource(local);
+			}
+			ObjectStorage.ObjectInfo info = backend.stat(fileName);
+			if (info == null) {
 				// Throw an exception if the file does not exist
 				throw new RuntimeException("File not found: " + fileName);
 			}
-		} catch (MalformedURLException ex) {
-			// Handle MalformedURLException by throwing a LocalStorageException
+			return new InputStreamResource(backend.read(fileName, 0, info.size()));
+		} catch (IOException ex) {
 			throw new RuntimeException("Error accessing file " + fileName + ": " + ex.getMessage());
 		}
 	}
@@ -87,15 +595,16 @@ public class LocalObjectStorageService {
 
 	public void deleteFile(String fileName) {
 		validateFileName(fileName);
-		Path fileToDeletePath = fileStorageLocation.resolve(fileName).normalize();
+		if (isContentAddressed(fileName)) {
+			// Shared object: drop one reference instead of pulling it from under other users
+			release(fileName);
+			return;
+		}
 		try {
 			// Check if the file exists
-			if (!Files.exists(fileToDeletePath)) {
+			if (!backend.delete(fileName)) {
 				throw new RuntimeException(String.format("File not found: %s", fileName));
 			}
-			
-			// Delete the file
-			Files.delete(fileToDeletePath);
 		} catch (IOException e) {
 			// Handle any IO exceptions that may occur during deletion
 			throw new RuntimeException(String.format("Could not delete file: %s. Reason: %s", fileName, e.getMessage()));
@@ -112,13 +621,8 @@ public class LocalObjectStorageService {
 
 	public List<String> listAllFiles() {
 		List<String> fileList = new ArrayList<>();
-		try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageLocation)) {
-			for (Path path : stream) {
-				// Only include files (not directories) in the list
-				if (!Files.isDirectory(path)) {
-					fileList.add(path.getFileName().toString());
-				}
-			}
+		try {
+			backend.list("", true, info -> fileList.add(info.key()));
 		} catch (IOException e) {
 			// Handle any IO exceptions that may occur during listing
 			throw new RuntimeException("Could not list files: " + e.getMessage());
@@ -127,13 +631,22 @@ public class LocalObjectStorageService {
 	}
 
 	
+	public void writeBase64(String fileName, OutputStream out) throws IOException {
+		ObjectStorage.ObjectInfo info = backend.stat(fileName);
+		if (info == null) {
+			throw new RuntimeException("File not found: " + fileName);
+		}
+		// Closing the encoder writes the final padding; the response stream itself stays open
+		OutputStream encoder = Base64.getEncoder().wrap(StreamUtils.nonClosing(out));
+		try (encoder; InputStream in = backend.read(fileName, 0, info.size())) {
+			in.transferTo(encoder);
+		}
+	}
+
 	public String getFileAsBase64(String fileName) {
-		Path filePath = fileStorageLocation.resolve(fileName).normalize();
 		try {
-			byte[] fileBytes = Files.readAllBytes(filePath);
-			String base64EncodedString = Base64.getEncoder().encodeToString(fileBytes);
-			return base64EncodedString;
-		} catch (IOException ex) {
+			return Base64.getEncoder().encodeToString(getFileAsBytes(fileName));
+		} catch (RuntimeException ex) {
 			throw new RuntimeException("Could not retrieve and encode file: " + fileName);
 		}
 	}
@@ -0,0 +1,64 @@
+package com.kidora.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Backend holding stored uploads, addressed by key ("ab/cd/&lt;sha256&gt;.jpg", i.e. the name after
+ * /uploads/products/). Writes are two-phase so a batch can be made durable together: {@link #stage}
+ * streams the content, {@link #commit} publishes a batch, {@link #abort} drops what stage left behind.
+ * A backend may publish already on stage (S3 objects appear atomically when their upload completes);
+ * callers delete keys they no longer want after a failed batch.
+ */
+public interface ObjectStorage {
+
+    record ObjectInfo(String key, long size, Instant lastModified) {
+    }
+
+    interface Upload {
+        String key();
+    }
+
+    Upload stage(String key, InputStream content, long size, String contentType) throws IOException;
+
+    void commit(List<Upload> uploads) throws IOException;
+
+    void abort(Upload upload);
+
+    // null when there is no such object
+    ObjectInfo stat(String key) throws IOException;
+
+    InputStream read(String key, long offset, long length) throws IOException;
+
+    // true if the object was deleted; remote backends cannot tell a missing key apart and report true
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Lists objects under {@code prefix} ("" or a directory-like prefix ending in "/"); without
+     * {@code recursive} only objects directly under it.
+     */
+    void list(String prefix, boolean recursive, Consumer<ObjectInfo> consumer) throws IOException;
+
+    // Drops staging leftovers (temp files, abandoned multipart uploads) older than the cutoff
+    void purgeStaleUploads(Instant before) throws IOException;
+
+    // The local file behind a key, for zero-copy serving; null for remote backends
+    default Path localFile(String key) {
+        return null;
+    }
+
+    default void put(String key, byte[] bytes, String contentType) throws IOException {
+        Upload upload = stage(key, new ByteArrayInputStream(bytes), bytes.length, contentType);
+        try {
+            commit(List.of(upload));
+        } catch (IOException e) {
+            abort(upload);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.kidora.service;
+
+/**
+ * Source of customer-facing order numbers.
+ * Implementations must be safe for concurrent use and must never hand out the same number twice.
+ */
+public interface OrderNumberGenerator {
+
+    String next();
+}
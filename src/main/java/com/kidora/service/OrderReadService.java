@@ -0,0 +1,63 @@
+package com.kidora.service;
+
+import com.kidora.entity.Order;
+import com.kidora.entity.ReturnRequest;
+import com.kidora.repository.OrderRepository;
+import com.kidora.repository.ReturnRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderReadService {
+
+    private final OrderRepository orderRepository;
+    private final ReturnRequestRepository returnRequestRepository;
+
+    /**
+     * Loads items (with their products) and return requests for a whole page of orders in two queries
+     * instead of two per order. Must run in the persistence context that loaded the orders
+     * (open-in-view or a surrounding transaction), so the fetched items land on those same instances.
+     *
+     * @return return requests keyed by order id; orders without one are absent
+     */
+    public Map<Long, ReturnRequest> prefetch(Collection<Order> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = orders.stream().map(Order::getId).toList();
+        orderRepository.fetchItemsByIdIn(ids);
+        return returnRequestRepository.findByOrderIdsWithPhotos(ids).stream()
+                .collect(Collectors.toMap(rr -> rr.getOrder().getId(), rr -> rr, (first, second) -> first));
+    }
+
+    // Order counts per status, one GROUP BY query; every status is present, zero when unused
+    public Map<String, Long> orderStatusHistogram() {
+        return histogram(Order.OrderStatus.values(), orderRepository.countGroupedByStatus());
+    }
+
+    public Map<String, Long> returnStatusHistogram() {
+        return histogram(ReturnRequest.Status.values(), returnRequestRepository.countGroupedByStatus());
+    }
+
+    private static Map<String, Long> histogram(Enum<?>[] statuses, List<Object[]> rows) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Enum<?> status : statuses) {
+            counts.put(status.name(), 0L);
+        }
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put(((Enum<?>) row[0]).name(), ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+}
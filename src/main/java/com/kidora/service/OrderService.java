@@ -2,16 +2,21 @@ package com.kidora.service;
 
 import com.kidora.entity.*;
 import com.kidora.repository.OrderRepository;
-import com.kidora.repository.ProductRepository;
 import com.kidora.repository.ReturnRequestRepository;
+import com.kidora.util.KeysetCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,9 +27,13 @@ import java.util.List;
 public class OrderService {
     
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
     private final ReturnRequestRepository returnRequestRepository;
+    private final ProductStockService productStockService;
+    private final StockReservationService stockReservationService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final DashboardRollupService dashboardRollupService;
     
+    @Timed(value = "kidora.order.create", histogram = true)
     public Order createOrder(User user, List<OrderItem> items, 
                            Order.PaymentMethod paymentMethod, String paymentProvider,
                            String senderNumber, String transactionId,
@@ -44,7 +53,7 @@ public class OrderService {
         BigDecimal totalAmount = subtotal.add(shippingCost);
         
         // Generate order number
-        String orderNumber = "ORD-" + System.currentTimeMillis();
+        String orderNumber = orderNumberGenerator.next();
         
         Order order = new Order();
         order.setOrderNumber(orderNumber);
@@ -74,36 +83,31 @@ public class OrderService {
         order.setShippingPostalCode(shippingPostalCode);
         order.setShippingNotes(shippingNotes);
         
-        // Save order first to get ID
-        order = orderRepository.save(order);
-        
-        // Set order reference in items and save
+        // Items cascade with the order, so one save and one flush persist everything
         final Order finalOrder = order;
         items.forEach(item -> item.setOrder(finalOrder));
         order.setOrderItems(items);
+        order = orderRepository.save(order);
 
-    // NOTE: Stock will now be deducted only when the order is marked as DELIVERED.
-    // This avoids reducing stock at order placement time and aligns with the requirement.
+        // Hold the quantities now; stock itself is deducted only when the order is DELIVERED
+        stockReservationService.reserve(order.getId(), items);
+        // Last step: the rollup row for today stays locked only until commit
+        dashboardRollupService.recordOrderPlaced(order);
 
         log.info("Order created successfully: {} for user: {}", orderNumber, user.getEmail());
-        return orderRepository.save(order);
+        return order;
     }
     
     // Deduct stock for all items in the order
     private void updateProductStock(List<OrderItem> items) {
-        items.forEach(item -> {
-            Product product = item.getProduct();
-            int newStock = product.getStock() - item.getQuantity();
-        // Prevent negative stock; log a warning if this happens.
-        if (newStock < 0) {
-        log.warn("Stock underflow while deducting for product {} (current: {}, qty: {}). Clamping to 0.",
-            product.getTitle(), product.getStock(), item.getQuantity());
-        newStock = 0;
+        var result = productStockService.decrement(ProductStockService.quantitiesByProduct(items));
+        if (!result.isSuccess()) {
+            // Prevent negative stock; log a warning if this happens.
+            log.warn("Stock underflow while deducting for products {}. Clamping to 0.", result.failedProductIds());
+            var failed = ProductStockService.quantitiesByProduct(items);
+            failed.keySet().retainAll(result.failedProductIds());
+            productStockService.decrementClamped(failed);
         }
-            product.setStock(newStock);
-            product.setUpdatedAt(LocalDateTime.now());
-            productRepository.save(product);
-        });
     }
     
     public List<Order> getUserOrders(User user) {
@@ -114,6 +118,17 @@ public class OrderService {
         return orderRepository.findAllByOrderByCreatedAtDesc(pageable);
     }
     
+    // Seek pagination for the admin list; cursor == null starts from the newest order
+    public Slice<Order> getOrdersAfter(KeysetCursor cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Order> rows = cursor == null
+                ? orderRepository.findAllByOrderByCreatedAtDescIdDesc(limit)
+                : orderRepository.findAllBefore(cursor.createdAt(), cursor.id(), limit);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+    }
+    
+    @Timed(value = "kidora.order.status.update", histogram = true)
     public Order updateOrderStatus(Long orderId, Order.OrderStatus newStatus) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -129,18 +144,30 @@ public class OrderService {
         LocalDateTime now = LocalDateTime.now();
         switch (newStatus) {
             case PROCESSING -> order.setProcessingTime(now);
-            case PACKED -> order.setPackedTime(now);
-            case SHIPPED -> order.setShippedTime(now);
-            case OUT_FOR_DELIVERY -> order.setOutForDeliveryTime(now);
+            case PACKED -> {
+                order.setPackedTime(now);
+                stockReservationService.confirm(orderId);
+            }
+            case SHIPPED -> {
+                order.setShippedTime(now);
+                stockReservationService.confirm(orderId);
+            }
+            case OUT_FOR_DELIVERY -> {
+                order.setOutForDeliveryTime(now);
+                stockReservationService.confirm(orderId);
+            }
             case DELIVERED -> {
                 order.setDeliveredTime(now);
                 order.setPaymentStatus(Order.PaymentStatus.VERIFIED);
-                // Deduct stock only when transitioning into DELIVERED
-                if (previousStatus != Order.OrderStatus.DELIVERED) {
+                // Deduct stock only when transitioning into DELIVERED; orders without a
+                // reservation (older orders, expired holds) fall back to a plain deduction
+                if (previousStatus != Order.OrderStatus.DELIVERED
+                        && !stockReservationService.consume(orderId)) {
                     updateProductStock(order.getOrderItems());
                 }
             }
             case CANCELLED -> {
+                stockReservationService.release(orderId);
                 // Restore stock if this order had previously been delivered
                 if (previousStatus == Order.OrderStatus.DELIVERED) {
                     restoreProductStock(order.getOrderItems());
@@ -153,17 +180,13 @@ public class OrderService {
                 && newStatus != Order.OrderStatus.CANCELLED) {
             restoreProductStock(order.getOrderItems());
         }
+        dashboardRollupService.recordStatusChange(order, previousStatus, newStatus);
         
         return orderRepository.save(order);
     }
     
     private void restoreProductStock(List<OrderItem> items) {
-        items.forEach(item -> {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            product.setUpdatedAt(LocalDateTime.now());
-            productRepository.save(product);
-        });
+        productStockService.increment(ProductStockService.quantitiesByProduct(items));
     }
     
     public Order updatePaymentStatus(Long orderId, Order.PaymentStatus paymentStatus) {
@@ -233,58 +256,41 @@ public class OrderService {
         return returnRequestRepository.save(req);
     }
     
-    // Dashboard statistics
+    // Dashboard statistics (served from the rollup tables)
     public Long getTodayOrdersCount() {
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        return orderRepository.countOrdersSince(startOfDay);
+        return dashboardRollupService.ordersSince(LocalDate.now());
     }
     
     public Double getTodayRevenue() {
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        Double revenue = orderRepository.getTotalRevenueSince(startOfDay);
-        return revenue != null ? revenue : 0.0;
+        return dashboardRollupService.revenueSince(LocalDate.now()).doubleValue();
     }
     
     public Long getThisMonthOrdersCount() {
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        return orderRepository.countOrdersSince(startOfMonth);
+        return dashboardRollupService.ordersSince(LocalDate.now().withDayOfMonth(1));
     }
     
     public Double getThisMonthRevenue() {
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        Double revenue = orderRepository.getTotalRevenueSince(startOfMonth);
-        return revenue != null ? revenue : 0.0;
+        return dashboardRollupService.revenueSince(LocalDate.now().withDayOfMonth(1)).doubleValue();
     }
 
     // Additional analytics
     public Double getTotalRevenueAllTime() {
-        Double rev = orderRepository.getTotalRevenueAllTime();
-        return rev != null ? rev : 0.0;
+        return dashboardRollupService.totalRevenue().doubleValue();
     }
 
     public Long getItemsSoldLastNDays(int days) {
-        LocalDateTime start = LocalDateTime.now().minusDays(days).withHour(0).withMinute(0).withSecond(0);
-        Long val = orderRepository.getTotalItemsSoldSince(start);
-        return val != null ? val : 0L;
+        return dashboardRollupService.itemsSoldSince(LocalDate.now().minusDays(days));
     }
 
     public List<java.util.Map<String,Object>> getRevenueTrendLastNDays(int days) {
-        LocalDateTime start = LocalDateTime.now().minusDays(days-1).withHour(0).withMinute(0).withSecond(0);
-        return orderRepository.getDailyRevenueSince(start);
+        return dashboardRollupService.dailyRevenueSince(LocalDate.now().minusDays(days - 1));
     }
 
     public List<java.util.Map<String,Object>> getTopProducts(int limit) {
-        List<Object[]> rows = orderRepository.getTopProducts();
-        return rows.stream().limit(limit).map(r -> {
-            java.util.Map<String,Object> m = new java.util.HashMap<>();
-            m.put("productId", r[0]);
-            m.put("title", r[1]);
-            m.put("quantity", r[2]);
-            return m;
-        }).toList();
+        return dashboardRollupService.topProducts(limit);
     }
 
     public Long getTotalOrders() {
-        return orderRepository.count();
+        return dashboardRollupService.totalOrders();
     }
 }
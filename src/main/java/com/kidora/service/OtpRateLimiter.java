@@ -0,0 +1,103 @@
+package com.kidora.service;
+
+import com.kidora.exception.RateLimitExceededException;
+import com.kidora.util.TokenBucketLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the unauthenticated OTP endpoints per client IP, per email and globally.
+ * Sending is limited separately from verifying, so guessing codes cannot lock out new codes and vice versa.
+ */
+@Component
+@Slf4j
+public class OtpRateLimiter {
+
+    private static final String GLOBAL_KEY = "*";
+
+    private final TokenBucketLimiter sendPerIp;
+    private final TokenBucketLimiter sendPerEmail;
+    private final TokenBucketLimiter sendGlobal;
+    private final TokenBucketLimiter verifyPerIp;
+    private final TokenBucketLimiter verifyPerEmail;
+    private final TokenBucketLimiter verifyGlobal;
+    private final boolean trustForwardedFor;
+
+    public OtpRateLimiter(@Value("${rate-limit.otp.send.period:600000}") long sendPeriod,
+                          @Value("${rate-limit.otp.send.per-ip:20}") int sendPerIp,
+                          @Value("${rate-limit.otp.send.per-email:5}") int sendPerEmail,
+                          @Value("${rate-limit.otp.send.global:1000}") int sendGlobal,
+                          @Value("${rate-limit.otp.verify.period:600000}") long verifyPeriod,
+                          @Value("${rate-limit.otp.verify.per-ip:50}") int verifyPerIp,
+                          @Value("${rate-limit.otp.verify.per-email:10}") int verifyPerEmail,
+                          @Value("${rate-limit.otp.verify.global:5000}") int verifyGlobal,
+                          @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                          @Value("${rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        Duration send = Duration.ofMillis(sendPeriod);
+        Duration verify = Duration.ofMillis(verifyPeriod);
+        this.sendPerIp = new TokenBucketLimiter("otp-send-ip", sendPerIp, send, maxKeys);
+        this.sendPerEmail = new TokenBucketLimiter("otp-send-email", sendPerEmail, send, maxKeys);
+        this.sendGlobal = new TokenBucketLimiter("otp-send-global", sendGlobal, send, 1);
+        this.verifyPerIp = new TokenBucketLimiter("otp-verify-ip", verifyPerIp, verify, maxKeys);
+        this.verifyPerEmail = new TokenBucketLimiter("otp-verify-email", verifyPerEmail, verify, maxKeys);
+        this.verifyGlobal = new TokenBucketLimiter("otp-verify-global", verifyGlobal, verify, 1);
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    public void checkSend(String email, HttpServletRequest request) {
+        check(sendPerIp, clientIp(request), "Too many OTP requests from your network");
+        check(sendPerEmail, normalize(email), "Too many OTP requests for this email");
+        check(sendGlobal, GLOBAL_KEY, "OTP service is busy");
+    }
+
+    public void checkVerify(String email, HttpServletRequest request) {
+        check(verifyPerIp, clientIp(request), "Too many verification attempts from your network");
+        check(verifyPerEmail, normalize(email), "Too many verification attempts for this email");
+        check(verifyGlobal, GLOBAL_KEY, "OTP service is busy");
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:60000}")
+    public void sweep() {
+        limiters().forEach(TokenBucketLimiter::sweep);
+    }
+
+    public List<Map<String, Object>> stats() {
+        return limiters().stream().map(TokenBucketLimiter::stats).toList();
+    }
+
+    private List<TokenBucketLimiter> limiters() {
+        return List.of(sendPerIp, sendPerEmail, sendGlobal, verifyPerIp, verifyPerEmail, verifyGlobal);
+    }
+
+    private static void check(TokenBucketLimiter limiter, String key, String message) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            log.debug("Rate limit {} hit for {}", limiter.name(), key);
+            throw new RateLimitExceededException(message + ". Please try again later.", retryAfter);
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                return forwarded.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
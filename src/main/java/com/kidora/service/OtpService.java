@@ -1,11 +1,11 @@
 package com.kidora.service;
 
 import com.kidora.entity.Otp;
-import com.kidora.repository.OtpRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,8 +19,9 @@ import java.util.Random;
 @Transactional
 public class OtpService {
     
-    private final OtpRepository otpRepository;
+    private final OtpStore otpStore;
     private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
     
     @Value("${otp.expiration}")
     private Long otpExpiration;
@@ -28,46 +29,40 @@ public class OtpService {
     private final Random random = new Random();
     
     public String generateAndSendOtp(String email, Otp.OtpType type) {
-        // Delete any existing OTPs for this email and type
-        otpRepository.deleteByEmailAndType(email, type);
-        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String otpCode = generateAndQueue(email, type);
+        // Store and outbox enqueue only; the SMTP side is kidora.email.smtp.send
+        sample.stop(otpTimer("kidora.otp.send", "type", type.name()));
+        return otpCode;
+    }
+    
+    private String generateAndQueue(String email, Otp.OtpType type) {
         // Generate 6-digit OTP
         String otpCode = String.format("%06d", random.nextInt(1000000));
         
-        // Create OTP entity
-        Otp otp = new Otp();
-        otp.setEmail(email);
-        otp.setOtpCode(otpCode);
-        otp.setType(type);
-        otp.setExpiryTime(LocalDateTime.now().plusSeconds(otpExpiration / 1000));
+        // Replaces any pending OTP for this email and type
+        otpStore.save(email, type, otpCode, LocalDateTime.now().plusSeconds(otpExpiration / 1000));
         
-        otpRepository.save(otp);
-        
-        // Send email asynchronously
-        sendOtpEmailAsync(email, otpCode, type);
+        // Queued in the outbox with this transaction; sent by EmailDispatcher after commit
+        emailService.sendOtpEmail(email, otpCode, purposeOf(type));
         
         log.info("OTP generated for email: {} with type: {}", email, type);
         return otpCode;
     }
     
-    @Async
-    public void sendOtpEmailAsync(String email, String otp, Otp.OtpType type) {
-        String purpose = switch (type) {
+    private static String purposeOf(Otp.OtpType type) {
+        return switch (type) {
             case LOGIN -> "login";
             case REGISTRATION -> "registration";
             case ADMIN_LOGIN -> "admin login";
         };
-        emailService.sendOtpEmail(email, otp, purpose);
     }
     
     public boolean verifyOtp(String email, String otpCode) {
-        var otpOpt = otpRepository.findByEmailAndOtpCodeAndUsedFalseAndExpiryTimeAfter(
-            email, otpCode, LocalDateTime.now());
-        
-        if (otpOpt.isPresent()) {
-            Otp otp = otpOpt.get();
-            otp.setUsed(true);
-            otpRepository.save(otp);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean verified = otpStore.consume(email, otpCode);
+        sample.stop(otpTimer("kidora.otp.verify", "outcome", verified ? "success" : "failure"));
+        if (verified) {
             log.info("OTP verified successfully for email: {}", email);
             return true;
         }
@@ -76,10 +71,18 @@ public class OtpService {
         return false;
     }
     
+    // The timer's count doubles as the send/verify counter
+    private Timer otpTimer(String name, String tag, String value) {
+        return Timer.builder(name)
+                .tag(tag, value)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
     // Clean up expired OTPs every hour
     @Scheduled(fixedRate = 3600000) // 1 hour
     public void cleanupExpiredOtps() {
-        otpRepository.deleteByExpiryTimeBefore(LocalDateTime.now());
+        otpStore.purgeExpired();
         log.info("Cleaned up expired OTPs");
     }
 }
@@ -0,0 +1,20 @@
+package com.kidora.service;
+
+import com.kidora.entity.Otp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where issued OTP codes live until they are used or expire.
+ * Selected with otp.store: "memory" (default, {@link InMemoryOtpStore}) or "database" ({@link JpaOtpStore}).
+ */
+public interface OtpStore {
+
+    // Replaces any pending code of the same type for this email
+    void save(String email, Otp.OtpType type, String code, LocalDateTime expiresAt);
+
+    // Atomically checks and uses up a pending, unexpired code of any type; true if one matched
+    boolean consume(String email, String code);
+
+    void purgeExpired();
+}
@@ -0,0 +1,91 @@
+package com.kidora.service;
+
+import com.kidora.util.ExpiringLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the storefront catalog reads in {@link ProductService}.
+ * Entries are weighted by the number of products they hold. Any product write drops the
+ * product's own entry plus every list/page entry, both immediately and again after commit,
+ * so a reader racing the writing transaction cannot re-populate a stale value for long.
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache {
+
+    private static final String PRODUCT_PREFIX = "product:";
+
+    private final ExpiringLruCache<String, Object> cache;
+    // Bumped on every invalidation; loads that straddle a write are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(@Value("${catalog.cache.max-weight:5000}") long maxWeight,
+                               @Value("${catalog.cache.ttl:300000}") long ttlMillis) {
+        this.cache = new ExpiringLruCache<>(maxWeight, Duration.ofMillis(ttlMillis), ProductCatalogCache::weigh);
+    }
+
+    public <T> T getProduct(Long id, Supplier<T> loader) {
+        return getOrLoad(PRODUCT_PREFIX + id, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, Supplier<T> loader) {
+        Object cached = cache.get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        long startGeneration = generation.get();
+        T loaded = loader.get();
+        if (loaded != null && generation.get() == startGeneration) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    public void invalidateProduct(Long productId) {
+        evict(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(productId);
+                }
+            });
+        }
+    }
+
+    public void invalidateProducts(Collection<Long> productIds) {
+        productIds.forEach(this::invalidateProduct);
+    }
+
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+
+    private void evict(Long productId) {
+        generation.incrementAndGet();
+        if (productId != null) {
+            cache.invalidate(PRODUCT_PREFIX + productId);
+        }
+        // List and page entries may contain (or now need to contain) the product
+        cache.invalidateIf(key -> !key.startsWith(PRODUCT_PREFIX));
+        log.debug("Catalog cache invalidated for product {}", productId);
+    }
+
+    private static long weigh(Object value) {
+        if (value instanceof Collection<?> c) return c.size();
+        if (value instanceof Page<?> p) return p.getNumberOfElements();
+        return 1;
+    }
+}
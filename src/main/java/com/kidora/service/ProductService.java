@@ -1,16 +1,28 @@
 package com.kidora.service;
 
+import com.kidora.config.ProductSearchIndexInitializer;
 import com.kidora.entity.Product;
 import com.kidora.repository.ProductRepository;
+import com.kidora.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,69 +31,143 @@ import java.util.List;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndexInitializer searchIndex;
+    private final ProductStockService productStockService;
     
     public List<Product> getAllActiveProducts() {
-        return productRepository.findByActiveTrue();
+        return catalogCache.getOrLoad("active",
+                () -> hydrate(productRepository.findByActiveTrue()));
     }
     
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryAndActiveTrue(category);
+        return catalogCache.getOrLoad("category:" + category,
+                () -> hydrate(productRepository.findByCategoryAndActiveTrue(category)));
     }
     
     public Page<Product> getActiveProducts(Pageable pageable) {
-        return productRepository.findByActiveTrueOrderByCreatedAtDesc(pageable);
+        return catalogCache.getOrLoad("page:" + pageable.getPageNumber() + ":" + pageable.getPageSize(), () -> {
+            Page<Product> page = productRepository.findByActiveTrueOrderByCreatedAtDesc(pageable);
+            hydrate(page.getContent());
+            return page;
+        });
     }
     
+    // Seek pagination for infinite scroll; cursor == null starts from the newest product
+    public Slice<Product> getActiveProductsAfter(KeysetCursor cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Product> rows = cursor == null
+                ? productRepository.findByActiveTrueOrderByCreatedAtDescIdDesc(limit)
+                : productRepository.findActiveBefore(cursor.createdAt(), cursor.id(), limit);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+    }
+    
+    // Served from the catalog cache; callers must not mutate the returned instance
     public Product getProductById(Long id) {
+        return catalogCache.getProduct(id, () -> hydrate(getProductForUpdate(id)));
+    }
+    
+    // Uncached, managed instance for read-modify-write flows
+    public Product getProductForUpdate(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
     
-    public List<Product> searchProducts(String query) {
-        return productRepository.searchProducts(query);
+    public Page<Product> searchProducts(String query, Pageable pageable) {
+        if (!searchIndex.isAvailable()) {
+            return productRepository.searchProducts(query, pageable);
+        }
+        String tsQuery = toPrefixTsQuery(query);
+        if (tsQuery.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return productRepository.fullTextSearch(tsQuery, pageable);
     }
     
     public Product createProduct(Product product) {
         product.setActive(true);
+        product.setReservedStock(0);
         Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(savedProduct.getId());
         log.info("Product created successfully: {}", savedProduct.getTitle());
         return savedProduct;
     }
     
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        Product product = getProductForUpdate(id);
+        int seenStock = product.getStock();
         
         product.setTitle(productDetails.getTitle());
         product.setPrice(productDetails.getPrice());
-        product.setStock(productDetails.getStock());
         product.setRating(productDetails.getRating());
         product.setCategory(productDetails.getCategory());
         product.setDiscount(productDetails.getDiscount());
         product.setDescription(productDetails.getDescription());
         product.setVideoUrl(productDetails.getVideoUrl());
+        if (!Objects.equals(product.getMainImage(), productDetails.getMainImage())) {
+            // Variants of the old image; the pipeline renders new ones
+            product.getImageVariants().clear();
+        }
         product.setMainImage(productDetails.getMainImage());
         product.setImages(productDetails.getImages());
         product.setAvailableSizes(productDetails.getAvailableSizes());
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
+        applyStockEdit(updatedProduct, seenStock, productDetails.getStock());
+        catalogCache.invalidateProduct(updatedProduct.getId());
         log.info("Product updated successfully: {}", updatedProduct.getTitle());
         return updatedProduct;
     }
     
-    // Overloaded method for direct product object update
+    // Overloaded method for direct product object update; stock is not written, see updateProduct(Product, Integer)
     public Product updateProduct(Product product) {
+        return updateProduct(product, null);
+    }
+    
+    /**
+     * Saves a product loaded earlier and, when {@code stock} differs from the stock it was loaded with,
+     * moves stock by that difference so sales made in between are kept.
+     */
+    public Product updateProduct(Product product, Integer stock) {
+        int seenStock = product.getStock();
         product.setUpdatedAt(LocalDateTime.now());
         Product updatedProduct = productRepository.save(product);
+        applyStockEdit(updatedProduct, seenStock, stock);
+        catalogCache.invalidateProduct(updatedProduct.getId());
         log.info("Product updated successfully: {}", updatedProduct.getTitle());
         return updatedProduct;
     }
     
+    private void applyStockEdit(Product product, int seenStock, Integer requested) {
+        if (requested != null && requested != seenStock) {
+            product.setStock(productStockService.adjust(product.getId(), requested - seenStock));
+        }
+    }
+    
+    /**
+     * Records variants rendered from {@code sourceUrl}; ignored when the main image has been replaced
+     * (or the product removed) while they were being generated.
+     */
+    public boolean updateImageVariants(Long id, String sourceUrl, Map<String, String> variants) {
+        Product product = productRepository.findById(id).orElse(null);
+        if (product == null || !sourceUrl.equals(product.getMainImage())) {
+            return false;
+        }
+        product.getImageVariants().clear();
+        product.getImageVariants().putAll(variants);
+        productRepository.save(product);
+        catalogCache.invalidateProduct(id);
+        return true;
+    }
+    
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = getProductForUpdate(id);
         product.setActive(false);
         product.setUpdatedAt(LocalDateTime.now());
         productRepository.save(product);
+        catalogCache.invalidateProduct(id);
         log.info("Product deactivated successfully: {}", product.getTitle());
     }
     
@@ -94,4 +180,27 @@ public class ProductService {
         // For now, return hardcoded categories matching frontend
         return List.of("women", "men", "kids", "rich");
     }
+    
+    // "red sho" -> "red:* & sho:*" so results narrow as the user types; only letters/digits survive,
+    // which keeps user input from ever reaching tsquery syntax
+    static String toPrefixTsQuery(String query) {
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .limit(8)
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+    
+    // Cached entities outlive the session, so lazy collections must be loaded up front
+    private Product hydrate(Product product) {
+        Hibernate.initialize(product.getImages());
+        Hibernate.initialize(product.getAvailableSizes());
+        Hibernate.initialize(product.getImageVariants());
+        return product;
+    }
+    
+    private List<Product> hydrate(List<Product> products) {
+        products.forEach(this::hydrate);
+        return List.copyOf(products);
+    }
 }
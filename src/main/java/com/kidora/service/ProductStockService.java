@@ -0,0 +1,114 @@
+package com.kidora.service;
+
+import com.kidora.entity.OrderItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * Stock mutations as single guarded UPDATE statements, batched per order.
+ * The database does the arithmetic, so concurrent writers can no longer overwrite each other's
+ * stock values the way load-compute-save did. Rows are touched in product id order so two batches
+ * never wait on each other's locks in opposite order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductStockService {
+
+    private final JdbcTemplate jdbc;
+    private final ProductCatalogCache catalogCache;
+
+    /**
+     * Decrements stock for every product, but only where enough stock is left.
+     * Lines that could not be applied are reported and left untouched; the caller decides whether
+     * that is fatal (roll back) or acceptable.
+     */
+    public StockMutationResult decrement(Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        return batch("UPDATE products SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?",
+                quantities, (id, qty) -> new Object[]{qty, now, id, qty});
+    }
+
+    // Same as decrement but never fails: stock bottoms out at zero
+    public void decrementClamped(Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        batch("UPDATE products SET stock = GREATEST(stock - ?, 0), updated_at = ? WHERE id = ?",
+                quantities, (id, qty) -> new Object[]{qty, now, id});
+    }
+
+    public void increment(Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        batch("UPDATE products SET stock = stock + ?, updated_at = ? WHERE id = ?",
+                quantities, (id, qty) -> new Object[]{qty, now, id});
+    }
+
+    /**
+     * Applies an admin stock edit as a delta on top of whatever checkouts and deliveries did meanwhile.
+     * @return the stock after the change
+     */
+    public int adjust(Long productId, int delta) {
+        jdbc.update("UPDATE products SET stock = GREATEST(stock + ?, 0), updated_at = ? WHERE id = ?",
+                delta, LocalDateTime.now(), productId);
+        catalogCache.invalidateProduct(productId);
+        return jdbc.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    // Holds quantity against available stock (stock - reserved_stock); fails per line when not enough is left
+    public StockMutationResult reserve(Map<Long, Integer> quantities) {
+        return batch("UPDATE products SET reserved_stock = reserved_stock + ? WHERE id = ? AND stock - reserved_stock >= ?",
+                quantities, (id, qty) -> new Object[]{qty, id, qty});
+    }
+
+    public void release(Map<Long, Integer> quantities) {
+        batch("UPDATE products SET reserved_stock = GREATEST(reserved_stock - ?, 0) WHERE id = ?",
+                quantities, (id, qty) -> new Object[]{qty, id});
+    }
+
+    // Turns a reservation into a deduction in one statement per product
+    public void consume(Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        batch("UPDATE products SET stock = GREATEST(stock - ?, 0), reserved_stock = GREATEST(reserved_stock - ?, 0), " +
+                        "updated_at = ? WHERE id = ?",
+                quantities, (id, qty) -> new Object[]{qty, qty, now, id});
+    }
+
+    private StockMutationResult batch(String sql, Map<Long, Integer> quantities,
+                                      BiFunction<Long, Integer, Object[]> argsFor) {
+        List<Long> ids = quantities.keySet().stream().sorted().toList();
+        List<Object[]> args = ids.stream().map(id -> argsFor.apply(id, quantities.get(id))).toList();
+        int[] counts = jdbc.batchUpdate(sql, args);
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) failed.add(ids.get(i));
+        }
+        catalogCache.invalidateProducts(ids);
+        return new StockMutationResult(failed);
+    }
+
+    // Sums quantities per product (one product can appear once per size), ordered by product id
+    public static Map<Long, Integer> quantitiesByProduct(Collection<OrderItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    public record StockMutationResult(List<Long> failedProductIds) {
+        public boolean isSuccess() {
+            return failedProductIds.isEmpty();
+        }
+    }
+}
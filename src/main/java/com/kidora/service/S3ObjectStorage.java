@@ -0,0 +1,189 @@
+package com.kidora.service;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Objects in an S3-compatible bucket (AWS S3, MinIO), shared by every app node. Content is streamed:
+ * small objects in one PUT, larger ones as a multipart upload holding one part in memory at a time.
+ * An object becomes visible atomically when its upload completes, so stage already publishes and
+ * commit has nothing left to do. Reads use ranged GETs.
+ */
+@Slf4j
+public class S3ObjectStorage implements ObjectStorage {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String keyPrefix;
+    private final int partSize;
+
+    public S3ObjectStorage(S3Client s3, String bucket, String keyPrefix, int partSize) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.partSize = (int) Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    // For local stand-ins (MinIO) started empty
+    public void createBucketIfMissing() {
+        try {
+            s3.headBucket(b -> b.bucket(bucket));
+        } catch (NoSuchBucketException e) {
+            s3.createBucket(b -> b.bucket(bucket));
+            log.info("Created bucket {}", bucket);
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw e;
+            }
+            s3.createBucket(b -> b.bucket(bucket));
+            log.info("Created bucket {}", bucket);
+        }
+    }
+
+    @Override
+    public Upload stage(String key, InputStream content, long size, String contentType) throws IOException {
+        String objectKey = keyPrefix + key;
+        try {
+            if (size >= 0 && size <= partSize) {
+                s3.putObject(b -> b.bucket(bucket).key(objectKey).contentType(contentType).contentLength(size),
+                        RequestBody.fromInputStream(content, size));
+            } else {
+                multipartUpload(objectKey, content, contentType);
+            }
+        } catch (S3Exception e) {
+            throw new IOException("S3 upload of " + key + " failed: " + e.getMessage(), e);
+        }
+        return new S3Upload(key);
+    }
+
+    @Override
+    public void commit(List<Upload> uploads) {
+        // Already visible after stage
+    }
+
+    @Override
+    public void abort(Upload upload) {
+        // Nothing staged outside the final key; callers delete keys they no longer want
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(b -> b.bucket(bucket).key(keyPrefix + key));
+            return new ObjectInfo(key, head.contentLength(), head.lastModified());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("S3 stat of " + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            String range = "bytes=" + offset + "-" + (offset + length - 1);
+            return s3.getObject(b -> b.bucket(bucket).key(keyPrefix + key).range(range));
+        } catch (S3Exception e) {
+            throw new IOException("S3 read of " + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(keyPrefix + key));
+            return true;
+        } catch (S3Exception e) {
+            throw new IOException("S3 delete of " + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, boolean recursive, Consumer<ObjectInfo> consumer) throws IOException {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(keyPrefix + prefix);
+        if (!recursive) {
+            request.delimiter("/");
+        }
+        try {
+            for (S3Object object : s3.listObjectsV2Paginator(request.build()).contents()) {
+                consumer.accept(new ObjectInfo(object.key().substring(keyPrefix.length()), object.size(), object.lastModified()));
+            }
+        } catch (S3Exception e) {
+            throw new IOException("S3 list of " + prefix + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Multipart uploads abandoned by a crashed node keep their parts (and cost) until aborted
+    @Override
+    public void purgeStaleUploads(Instant before) throws IOException {
+        try {
+            for (MultipartUpload upload : s3.listMultipartUploadsPaginator(b -> b.bucket(bucket).prefix(keyPrefix)).uploads()) {
+                if (upload.initiated().isBefore(before)) {
+                    s3.abortMultipartUpload(b -> b.bucket(bucket).key(upload.key()).uploadId(upload.uploadId()));
+                }
+            }
+        } catch (S3Exception e) {
+            throw new IOException("S3 multipart cleanup failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void multipartUpload(String objectKey, InputStream content, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(objectKey).contentType(contentType)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[partSize];
+            int partNumber = 1;
+            int filled;
+            while ((filled = content.readNBytes(buffer, 0, partSize)) > 0 || partNumber == 1) {
+                int number = partNumber++;
+                int length = filled;
+                String etag = s3.uploadPart(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId).partNumber(number),
+                        RequestBody.fromBytes(length == buffer.length ? buffer : Arrays.copyOf(buffer, length))).eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(etag).build());
+                if (filled < partSize) {
+                    break;
+                }
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId));
+            } catch (S3Exception abortFailure) {
+                log.warn("Could not abort multipart upload {} of {}: {}", uploadId, objectKey, abortFailure.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private record S3Upload(String key) implements Upload {
+    }
+}
@@ -0,0 +1,126 @@
+package com.kidora.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01 UTC, 10 bits of node id
+ * and a 12 bit per-millisecond sequence, rendered as "ORD-" + 13 Crockford base32 characters.
+ * Time and sequence live in one AtomicLong advanced by CAS, so ids are unique and increasing per node
+ * without locks or a database round trip. When a millisecond's sequence is used up the generator borrows
+ * the next millisecond instead of waiting.
+ * <p>
+ * If the clock steps back, ids carry on from the last millisecond handed out, one borrowed millisecond per
+ * 4096 ids, until the wall clock passes it again; numbers stay unique and increasing, they just carry a
+ * time ahead of the wall clock for a while. That state lives in memory, so at startup
+ * OrderNumberGeneratorInitializer moves it past the highest order number already stored. A restart during
+ * such a window, or onto a clock behind the last run, then continues above every number the table holds.
+ */
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD-";
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13; // ceil(63 / 5)
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(@Value("${order.number.node-id:-1}") long nodeId,
+                                         @Value("${order.number.single-instance:true}") boolean singleInstance) {
+        this(nodeId < 0 ? defaultNodeId(singleInstance) : nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeOrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("order.number.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        log.info("Order number generator using node id {}", nodeId);
+    }
+
+    @Override
+    public String next() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = lastState.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = prev + 1;
+            } else {
+                next = (prevMillis + 1) << SEQUENCE_BITS;
+            }
+            if (lastState.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & MAX_SEQUENCE);
+            }
+        }
+    }
+
+    /**
+     * Never issue an id at or below the millisecond of {@code issuedId}; ids already past it are unaffected.
+     */
+    public void advancePast(long issuedId) {
+        long floor = ((issuedId >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS) | MAX_SEQUENCE;
+        lastState.accumulateAndGet(floor, Math::max);
+    }
+
+    // Fixed width keeps string order identical to numeric order
+    public static String format(long id) {
+        char[] out = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return PREFIX + new String(out);
+    }
+
+    public static long parse(String orderNumber) {
+        if (orderNumber.length() != PREFIX.length() + ENCODED_LENGTH || !orderNumber.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Not a generated order number: " + orderNumber);
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < orderNumber.length(); i++) {
+            int digit = Arrays.binarySearch(ALPHABET, orderNumber.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a generated order number: " + orderNumber);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    // Two nodes sharing an id would hand out the same numbers, so an id is only implied for a single instance
+    static long defaultNodeId(boolean singleInstance) {
+        if (!singleInstance) {
+            throw new IllegalStateException(
+                    "order.number.node-id (ORDER_NODE_ID) must be set to a unique 0-" + MAX_NODE + " per instance when order.number.single-instance=false");
+        }
+        log.warn("order.number.node-id is not set; using node id 0, which is only safe while a single instance runs");
+        return 0;
+    }
+}
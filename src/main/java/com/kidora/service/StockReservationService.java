@@ -0,0 +1,107 @@
+package com.kidora.service;
+
+import com.kidora.entity.OrderItem;
+import com.kidora.entity.StockReservation;
+import com.kidora.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for orders between placement and delivery.
+ * Placing an order reserves its quantities (available = stock - reserved_stock, checked and
+ * incremented in one guarded UPDATE); delivery converts the hold into a stock deduction and
+ * cancellation gives it back. Orders left in PROCESSING past the TTL lose their hold.
+ * stock and reserved_stock are never written by a Product save, so an admin edit cannot undo a
+ * consume and let stock drift away from stock_reservations.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class StockReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductStockService productStockService;
+
+    @Value("${stock.reservation.ttl:259200000}")
+    private long reservationTtlMillis;
+
+    // Throws when any product cannot cover its quantity; the caller's transaction then rolls back every line
+    public void reserve(Long orderId, List<OrderItem> items) {
+        Map<Long, Integer> quantities = ProductStockService.quantitiesByProduct(items);
+        var result = productStockService.reserve(quantities);
+        if (!result.isSuccess()) {
+            String titles = items.stream()
+                    .filter(item -> result.failedProductIds().contains(item.getProduct().getId()))
+                    .map(item -> item.getProductTitle() != null ? item.getProductTitle() : String.valueOf(item.getProduct().getId()))
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("Insufficient stock for product: " + titles);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(reservationTtlMillis));
+        List<StockReservation> rows = quantities.entrySet().stream()
+                .map(e -> new StockReservation(null, orderId, e.getKey(), e.getValue(), now, expiresAt))
+                .toList();
+        reservationRepository.saveAll(rows);
+    }
+
+    // Returns false when the order holds nothing (placed before reservations existed, already released or expired)
+    public boolean consume(Long orderId) {
+        List<StockReservation> rows = reservationRepository.lockByOrderId(orderId);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        productStockService.consume(sumByProduct(rows));
+        reservationRepository.deleteAllInBatch(rows);
+        return true;
+    }
+
+    public boolean release(Long orderId) {
+        List<StockReservation> rows = reservationRepository.lockByOrderId(orderId);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        productStockService.release(sumByProduct(rows));
+        reservationRepository.deleteAllInBatch(rows);
+        return true;
+    }
+
+    // The order is being worked on, so its hold should last until delivery or cancellation
+    public void confirm(Long orderId) {
+        reservationRepository.clearExpiry(orderId);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval:300000}",
+            initialDelayString = "${stock.reservation.sweep-interval:300000}")
+    public void releaseExpired() {
+        List<StockReservation> rows = reservationRepository.lockExpired(LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return;
+        }
+        productStockService.release(sumByProduct(rows));
+        reservationRepository.deleteAllInBatch(rows);
+        log.info("Released {} expired stock reservations for orders {}", rows.size(),
+                rows.stream().map(StockReservation::getOrderId).distinct().toList());
+    }
+
+    private static Map<Long, Integer> sumByProduct(Collection<StockReservation> rows) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservation row : rows) {
+            quantities.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
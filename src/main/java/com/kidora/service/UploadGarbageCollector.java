@@ -0,0 +1,254 @@
+package com.kidora.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Incremental mark-and-sweep over the upload store (directory or bucket). Every run marks (streams every image URL the
+ * database refers to into a sorted array of 64-bit fingerprints) and then sweeps the next few shards:
+ * the 256 first-level fan-out directories of content-addressed objects plus the flat legacy files.
+ * Unreferenced files older than the grace period are deleted; a fingerprint collision can only keep a
+ * file, never delete a referenced one.
+ */
+@Service
+@Slf4j
+public class UploadGarbageCollector {
+
+    private static final String LEGACY_SHARD = "";
+    private static final List<String> SHARDS = shards();
+
+    // Every column that can hold a /uploads/products/ URL; a new image, video or photo field belongs here too
+    private static final List<String> REFERENCES = List.of(
+            "SELECT main_image FROM products",
+            "SELECT video_url FROM products",
+            "SELECT image_url FROM product_images",
+            "SELECT image_url FROM product_image_variants",
+            "SELECT image_url FROM hero_banners",
+            "SELECT photo_url FROM return_request_photos",
+            "SELECT product_image FROM order_items");
+
+    private final LocalObjectStorageService storage;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final boolean defaultDryRun;
+    private final Duration grace;
+    private final int shardsPerRun;
+
+    // Not synchronized: a run spends its time in JDBC and storage I/O, which would pin a virtual thread's carrier
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile int cursor;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder collected = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+    private final LongAdder dryRunCandidates = new LongAdder();
+    private final LongAdder dryRunBytes = new LongAdder();
+    private final AtomicLong lastReferences = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private volatile Instant lastRunAt;
+
+    public UploadGarbageCollector(LocalObjectStorageService storage,
+                                  JdbcTemplate jdbc,
+                                  @Value("${upload.gc.enabled:true}") boolean enabled,
+                                  @Value("${upload.gc.dry-run:true}") boolean defaultDryRun,
+                                  @Value("${upload.gc.grace:259200000}") long graceMillis,
+                                  @Value("${upload.gc.shards-per-run:16}") int shardsPerRun) {
+        this.storage = storage;
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.defaultDryRun = defaultDryRun;
+        this.grace = Duration.ofMillis(graceMillis);
+        this.shardsPerRun = Math.max(1, shardsPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${upload.gc.interval:600000}", initialDelayString = "${upload.gc.initial-delay:300000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run(defaultDryRun, shardsPerRun);
+        }
+    }
+
+    /**
+     * Marks, then sweeps {@code shards} shards from where the previous run stopped (SHARDS.size() = full pass).
+     */
+    public Map<String, Object> run(boolean dryRun, int shards) {
+        runLock.lock();
+        try {
+            return sweep(dryRun, shards);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private Map<String, Object> sweep(boolean dryRun, int shards) {
+        long started = System.currentTimeMillis();
+        Instant cutoff = Instant.now().minus(grace);
+        long[] referenced = mark();
+
+        int count = Math.min(Math.max(shards, 1), SHARDS.size());
+        long files = 0;
+        long candidates = 0;
+        long bytes = 0;
+        for (int i = 0; i < count; i++) {
+            String shard = SHARDS.get(cursor);
+            cursor = (cursor + 1) % SHARDS.size();
+            for (ObjectStorage.ObjectInfo object : list(shard)) {
+                files++;
+                if (contains(referenced, fingerprint(object.key()))) {
+                    continue;
+                }
+                long reclaimed = collectIfOld(object, cutoff, dryRun);
+                if (reclaimed >= 0) {
+                    candidates++;
+                    bytes += reclaimed;
+                }
+            }
+        }
+        purgeStaleTempFiles(cutoff, dryRun);
+
+        runs.increment();
+        scanned.add(files);
+        if (dryRun) {
+            dryRunCandidates.add(candidates);
+            dryRunBytes.add(bytes);
+        } else {
+            collected.add(candidates);
+            reclaimedBytes.add(bytes);
+        }
+        lastReferences.set(referenced.length);
+        lastRunMillis.set(System.currentTimeMillis() - started);
+        lastRunAt = Instant.now();
+        if (candidates > 0) {
+            log.info("Upload GC{} swept {} shards: {} of {} files unreferenced, {} bytes",
+                    dryRun ? " (dry run)" : "", count, candidates, files, bytes);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dryRun", dryRun);
+        result.put("shards", count);
+        result.put("filesScanned", files);
+        result.put(dryRun ? "wouldDelete" : "deleted", candidates);
+        result.put(dryRun ? "wouldReclaimBytes" : "reclaimedBytes", bytes);
+        result.put("referencedNames", referenced.length);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("dryRun", defaultDryRun);
+        stats.put("graceMs", grace.toMillis());
+        stats.put("runs", runs.sum());
+        stats.put("filesScanned", scanned.sum());
+        stats.put("deleted", collected.sum());
+        stats.put("reclaimedBytes", reclaimedBytes.sum());
+        stats.put("dryRunCandidates", dryRunCandidates.sum());
+        stats.put("dryRunBytes", dryRunBytes.sum());
+        stats.put("referencedNames", lastReferences.get());
+        stats.put("lastRunMs", lastRunMillis.get());
+        stats.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        stats.put("nextShard", cursor);
+        return stats;
+    }
+
+    // Sorted, de-duplicated fingerprints of every stored name referenced from the database
+    private long[] mark() {
+        long[][] buffer = {new long[1024]};
+        int[] size = {0};
+        for (String sql : REFERENCES) {
+            jdbc.query(sql, rs -> {
+                String name = storage.storedNameOf(rs.getString(1));
+                if (name == null) {
+                    return; // empty or an image hosted elsewhere
+                }
+                if (size[0] == buffer[0].length) {
+                    buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+                }
+                buffer[0][size[0]++] = fingerprint(name);
+            });
+        }
+        long[] sorted = Arrays.copyOf(buffer[0], size[0]);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    // Legacy files sit directly under the root; content-addressed objects two levels below their shard
+    private List<ObjectStorage.ObjectInfo> list(String shard) {
+        List<ObjectStorage.ObjectInfo> objects = new ArrayList<>();
+        try {
+            storage.list(LEGACY_SHARD.equals(shard) ? "" : shard + "/", !LEGACY_SHARD.equals(shard), objects::add);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload GC could not list shard '{}': {}", shard, e.getMessage());
+        }
+        return objects;
+    }
+
+    private long collectIfOld(ObjectStorage.ObjectInfo object, Instant cutoff, boolean dryRun) {
+        if (object.lastModified().isAfter(cutoff)) {
+            return -1; // may belong to a save that has not committed yet
+        }
+        try {
+            return storage.collect(object.key(), cutoff, dryRun);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload GC could not collect {}: {}", object.key(), e.getMessage());
+            return -1;
+        }
+    }
+
+    // Leftovers of uploads interrupted by a crash (temp files, abandoned multipart uploads)
+    private void purgeStaleTempFiles(Instant cutoff, boolean dryRun) {
+        if (dryRun) {
+            return;
+        }
+        try {
+            storage.purgeStaleUploads(cutoff);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload GC could not clean temp files: {}", e.getMessage());
+        }
+    }
+
+    private static boolean contains(long[] sorted, long fingerprint) {
+        return Arrays.binarySearch(sorted, fingerprint) >= 0;
+    }
+
+    // 64-bit FNV-1a
+    static long fingerprint(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static List<String> shards() {
+        List<String> shards = new ArrayList<>(257);
+        shards.add(LEGACY_SHARD);
+        for (int i = 0; i < 256; i++) {
+            shards.add(String.format("%02x", i));
+        }
+        return List.copyOf(shards);
+    }
+}
@@ -0,0 +1,94 @@
+package com.kidora.service;
+
+import com.kidora.entity.User;
+import com.kidora.util.ExpiringLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of {@link User} principals keyed by email, in front of
+ * {@link UserService#loadUserByUsername}. Entries are immutable snapshots and every hit hands out a fresh
+ * detached copy, so a caller changing its User cannot leak into other requests; code that modifies a user
+ * loads it uncached first. Writes to a user evict the entry immediately and again after commit.
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+
+    private final ExpiringLruCache<String, Snapshot> users;
+
+    public UserPrincipalCache(@Value("${security.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${security.principal-cache.ttl:60000}") long ttlMillis) {
+        this.users = new ExpiringLruCache<>(maxSize, Duration.ofMillis(ttlMillis), u -> 1);
+    }
+
+    public User get(String email, Supplier<User> loader) {
+        Snapshot cached = users.get(email);
+        if (cached != null) {
+            return cached.toUser();
+        }
+        User loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        Snapshot snapshot = Snapshot.of(loaded);
+        users.put(email, snapshot);
+        return snapshot.toUser();
+    }
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        users.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.invalidate(email);
+                }
+            });
+        }
+    }
+
+    // Scalar columns only; the lazy address and order collections are never read off a principal.
+    // User#isEnabled hides the raw flag behind emailVerified, so the copy carries that effective value
+    private record Snapshot(Long id, String email, String firstName, String lastName, String phone, User.Role role,
+                            boolean emailVerified, boolean enabled, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        static Snapshot of(User user) {
+            return new Snapshot(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(), user.getPhone(),
+                    user.getRole(), user.isEmailVerified(), user.isEnabled(), user.getCreatedAt(), user.getUpdatedAt());
+        }
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setEmail(email);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setPhone(phone);
+            user.setRole(role);
+            user.setEmailVerified(emailVerified);
+            user.setEnabled(enabled);
+            user.setCreatedAt(createdAt);
+            user.setUpdatedAt(updatedAt);
+            return user;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("principals", users.stats());
+        return stats;
+    }
+}
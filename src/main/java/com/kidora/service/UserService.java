@@ -23,14 +23,15 @@ public class UserService implements UserDetailsService {
     
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final UserPrincipalCache principalCache;
     
     @Value("${admin.email}")
     private String adminEmail;
     
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        return principalCache.get(email, () -> userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email)));
     }
     
     public User createUser(String email, String firstName, String lastName, String phone) {
@@ -51,6 +52,7 @@ public class UserService implements UserDetailsService {
         }
         
         User savedUser = userRepository.save(user);
+        principalCache.evict(email);
         
         // Send welcome email
         emailService.sendWelcomeEmail(email, firstName);
@@ -65,7 +67,15 @@ public class UserService implements UserDetailsService {
     
     public User updateUser(User user) {
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evict(saved.getEmail());
+        return saved;
+    }
+    
+    // Takes effect for ADMIN/SUB_ADMIN tokens on their next request, see JwtAuthenticationFilter
+    public User changeRole(User user, User.Role role) {
+        user.setRole(role);
+        return updateUser(user);
     }
     
     public boolean isAdminEmail(String email) {
@@ -77,8 +87,7 @@ public class UserService implements UserDetailsService {
                 .map(existing -> {
                     // Ensure admin email always has ADMIN role, even for pre-existing users
                     if (adminEmail.equals(email) && existing.getRole() != User.Role.ADMIN) {
-                        existing.setRole(User.Role.ADMIN);
-                        return userRepository.save(existing);
+                        return changeRole(existing, User.Role.ADMIN);
                     }
                     return existing;
                 })
@@ -91,7 +100,9 @@ public class UserService implements UserDetailsService {
                         newUser.setRole(User.Role.ADMIN);
                     }
                     
-                    return userRepository.save(newUser);
+                    User saved = userRepository.save(newUser);
+                    principalCache.evict(email);
+                    return saved;
                 });
     }
 
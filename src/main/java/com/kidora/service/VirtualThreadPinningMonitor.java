@@ -0,0 +1,158 @@
+package com.kidora.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams the JFR jdk.VirtualThreadPinned event in-process: a virtual thread that blocks while pinned to its
+ * carrier (inside synchronized, or in native code) for longer than the threshold is counted per call site,
+ * attributed to the innermost com.kidora frame so driver or library locks show up under the code that
+ * called into them. Runs by default only when virtual threads are enabled.
+ */
+@Service
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_PACKAGE = "com.kidora.";
+    private static final int MAX_SITES = 200;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final boolean enabled;
+    private final Duration threshold;
+    private final ConcurrentHashMap<String, Site> sites = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final LongAdder droppedSites = new LongAdder();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${diagnostics.virtual-threads.pinning.enabled:${spring.threads.virtual.enabled:false}}") boolean enabled,
+                                       @Value("${diagnostics.virtual-threads.pinning.threshold:20}") long thresholdMillis) {
+        this.enabled = enabled;
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(EVENT).withThreshold(threshold).withStackTrace();
+            recording.onEvent(EVENT, this::record);
+            recording.startAsync();
+            stream = recording;
+            log.info("Watching for virtual thread pinning longer than {} ms", threshold.toMillis());
+        } catch (RuntimeException e) {
+            // JFR can be unavailable (e.g. disabled in a minimal runtime); diagnostics must not stop the app
+            log.warn("Virtual thread pinning monitor not started: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream recording = stream;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        events.increment();
+        pinnedNanos.add(nanos);
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String key = site(frames);
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                droppedSites.increment();
+                return;
+            }
+            site = sites.computeIfAbsent(key, k -> new Site());
+            if (site.count.sum() == 0) {
+                log.warn("Virtual thread pinned for {} ms at {}:{}", nanos / 1_000_000, key, describe(frames));
+            }
+        }
+        site.count.increment();
+        site.nanos.add(nanos);
+        site.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", stream != null);
+        stats.put("thresholdMs", threshold.toMillis());
+        stats.put("events", events.sum());
+        stats.put("pinnedMs", pinnedNanos.sum() / 1_000_000);
+        stats.put("droppedSites", droppedSites.sum());
+        stats.put("sites", sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Site> e) -> e.getValue().nanos.sum()).reversed())
+                .map(e -> {
+                    Map<String, Object> site = new LinkedHashMap<>();
+                    site.put("site", e.getKey());
+                    site.put("count", e.getValue().count.sum());
+                    site.put("totalMs", e.getValue().nanos.sum() / 1_000_000);
+                    site.put("maxMs", e.getValue().maxNanos.get() / 1_000_000);
+                    return site;
+                })
+                .toList());
+        return stats;
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace != null ? stackTrace.getFrames() : List.of();
+    }
+
+    // Innermost frame of our own code, else the innermost frame overall
+    static String site(List<RecordedFrame> frames) {
+        RecordedFrame chosen = null;
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(OWN_PACKAGE)) {
+                chosen = frame;
+                break;
+            }
+        }
+        if (chosen == null && !frames.isEmpty()) {
+            chosen = frames.get(0);
+        }
+        return chosen != null ? format(chosen) : "unknown";
+    }
+
+    private static String describe(List<RecordedFrame> frames) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            out.append("\n\tat ").append(format(frames.get(i)));
+        }
+        return out.toString();
+    }
+
+    private static String format(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
@@ -0,0 +1,165 @@
+package com.kidora.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small bounded LRU cache with optional time-to-live.
+ * Capacity is expressed as a total weight (e.g. number of entities held) rather than an entry count,
+ * so one large list entry can push out many small ones.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ExpiringLruCache(long maxWeight, Duration ttl, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toNanos();
+        this.weigher = weigher;
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (isExpired(entry, System.nanoTime())) {
+                entries.remove(key);
+                totalWeight -= entry.weight;
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            // Never let a single oversized entry flush the whole cache
+            return;
+        }
+        lock.lock();
+        try {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime()));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+            evictIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateIf(Predicate<K> keyPredicate) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (keyPredicate.test(e.getKey())) {
+                    totalWeight -= e.getValue().weight;
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidateIf(k -> true);
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            long h = hits.sum();
+            long m = misses.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hits", h);
+            stats.put("misses", m);
+            stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+            stats.put("evictions", evictions.sum());
+            stats.put("expirations", expirations.sum());
+            stats.put("invalidations", invalidations.sum());
+            stats.put("entries", entries.size());
+            stats.put("weight", totalWeight);
+            stats.put("maxWeight", maxWeight);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (totalWeight <= maxWeight) return;
+        long now = System.nanoTime();
+        Iterator<Entry<V>> it = entries.values().iterator();
+        // First pass drops anything already expired, second pass falls back to LRU order
+        while (it.hasNext() && totalWeight > maxWeight) {
+            Entry<V> e = it.next();
+            if (isExpired(e, now)) {
+                totalWeight -= e.weight;
+                it.remove();
+                expirations.increment();
+            }
+        }
+        it = entries.values().iterator();
+        while (it.hasNext() && totalWeight > maxWeight) {
+            Entry<V> e = it.next();
+            totalWeight -= e.weight;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAt > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long weight, long createdAt) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.kidora.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for expiring keys in O(1) per schedule and per tick.
+ * Level i has 64 buckets of 64^i ticks each; a key sits on the lowest level whose next-higher slot it
+ * shares with the current tick and is cascaded one level down when its slot comes up, so every key is
+ * touched at most once per level. Keys are never removed early: the expiry callback must re-check
+ * whether the key is really due (it may have been replaced or consumed meanwhile).
+ * Not thread-safe; callers shard and synchronize.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private static final int BITS = 6;
+    private static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4; // 64^4 ticks ahead before falling back to the overflow list
+
+    private final long tickMillis;
+    private final List<List<Node<K>>> buckets = new ArrayList<>(LEVELS * WHEEL_SIZE);
+    private final List<Node<K>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    public void schedule(K key, long deadlineMillis) {
+        // Round up so a key never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        place(new Node<>(key, Math.max(deadlineTick, currentTick + 1)));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, handing every key whose tick has passed to {@code expired}.
+     * @return number of keys handed out
+     */
+    public int advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & ((1L << (BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+                List<Node<K>> pending = new ArrayList<>(overflow);
+                overflow.clear();
+                pending.forEach(this::place);
+            }
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    List<Node<K>> bucket = bucket(level, currentTick);
+                    if (!bucket.isEmpty()) {
+                        List<Node<K>> cascading = new ArrayList<>(bucket);
+                        bucket.clear();
+                        cascading.forEach(this::place);
+                    }
+                }
+            }
+            List<Node<K>> due = bucket(0, currentTick);
+            if (!due.isEmpty()) {
+                List<Node<K>> firing = new ArrayList<>(due);
+                due.clear();
+                size -= firing.size();
+                fired += firing.size();
+                for (Node<K> node : firing) {
+                    expired.accept(node.key);
+                }
+            }
+        }
+        return fired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // During advance() a key due at the current tick lands in the bucket that is about to fire
+    private void place(Node<K> node) {
+        long deadline = Math.max(node.deadlineTick, currentTick);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * (level + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                bucket(level, deadline).add(new Node<>(node.key, deadline));
+                return;
+            }
+        }
+        overflow.add(node);
+    }
+
+    private List<Node<K>> bucket(int level, long tick) {
+        return buckets.get(level * WHEEL_SIZE + (int) ((tick >>> (BITS * level)) & MASK));
+    }
+
+    private record Node<K>(K key, long deadlineTick) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.kidora.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket per key, in the GCRA form: each key keeps only the time at which its bucket
+ * will be full again, advanced by one CAS per permit. {@code permits} requests are allowed per
+ * {@code period}, all of them in a burst if the key was idle.
+ * The key space is bounded: idle keys (bucket already full again) carry no state and are swept, and
+ * when the map is full of active keys newcomers share one overflow bucket instead of growing memory.
+ */
+public class TokenBucketLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public TokenBucketLimiter(String name, int permits, Duration period, int maxKeys) {
+        this(name, permits, period, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(String name, int permits, Duration period, int maxKeys, LongSupplier clock) {
+        if (permits <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs positive permits and period");
+        }
+        this.name = name;
+        this.intervalNanos = period.toNanos() / permits;
+        this.burstNanos = period.toNanos();
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one permit for {@code key}.
+     * @return 0 when allowed, otherwise nanoseconds until a permit will be available
+     */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = bucketFor(key, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                rejected.increment();
+                return next - burstNanos - now;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    // Drops keys whose bucket has refilled; they behave exactly like unseen keys
+    public int sweep() {
+        long now = clock.getAsLong();
+        lastSweep.set(now);
+        int before = buckets.size();
+        buckets.entrySet().removeIf(e -> e.getValue().get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("overflowed", overflowed.sum());
+        stats.put("keys", buckets.size());
+        stats.put("maxKeys", maxKeys);
+        return stats;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            // At most one inline sweep per second, so a flood of new keys cannot make every call O(keys)
+            long last = lastSweep.get();
+            if (now - last < 1_000_000_000L || !lastSweep.compareAndSet(last, now) || sweep() == 0) {
+                overflowed.increment();
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,19 @@
+package com.kidora.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked; produced by {@link JwtUtil#verify}.
+ */
+public record VerifiedToken(String subject, String role, Instant issuedAt, Instant expiresAt) {
+
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+}
@@ -0,0 +1,43 @@
+package com.kidora.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatementMetricsFilterTest {
+
+    @Test
+    void countsStatementsPerRouteAndOnlyInsideRequests() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry);
+        StatementCountingInspector inspector = new StatementCountingInspector();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/orders/{id}");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                inspector.inspect("select 1");
+                inspector.inspect("select 2");
+                inspector.inspect("select 3");
+            }
+        });
+        // Outside a request (schedulers, startup) nothing is counted
+        inspector.inspect("select 4");
+        filter.doFilter(new MockHttpServletRequest("GET", "/nowhere"), new MockHttpServletResponse(), new MockFilterChain());
+
+        DistributionSummary orders = registry.get("kidora.http.server.statements").tag("uri", "/api/orders/{id}").summary();
+        assertEquals(1, orders.count());
+        assertEquals(3.0, orders.totalAmount());
+        DistributionSummary unknown = registry.get("kidora.http.server.statements").tag("uri", "UNKNOWN").summary();
+        assertEquals(0.0, unknown.totalAmount());
+    }
+}
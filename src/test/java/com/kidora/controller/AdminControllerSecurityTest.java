@@ -0,0 +1,72 @@
+package com.kidora.controller;
+
+import com.kidora.config.SecurityConfig;
+import com.kidora.repository.ReturnRequestRepository;
+import com.kidora.security.JwtAuthenticationEntryPoint;
+import com.kidora.service.DashboardRollupService;
+import com.kidora.service.EmailDispatcher;
+import com.kidora.service.ImageVariantService;
+import com.kidora.service.LocalObjectStorageService;
+import com.kidora.service.OrderReadService;
+import com.kidora.service.OrderService;
+import com.kidora.service.OtpRateLimiter;
+import com.kidora.service.ProductCatalogCache;
+import com.kidora.service.UploadGarbageCollector;
+import com.kidora.service.UserPrincipalCache;
+import com.kidora.service.UserService;
+import com.kidora.service.VirtualThreadPinningMonitor;
+import com.kidora.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+@Import({SecurityConfig.class, JwtAuthenticationEntryPoint.class, SimpleMeterRegistry.class})
+class AdminControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean private OrderService orderService;
+    @MockitoBean private OrderReadService orderReadService;
+    @MockitoBean private UserService userService;
+    @MockitoBean private ReturnRequestRepository returnRequestRepository;
+    @MockitoBean private ProductCatalogCache productCatalogCache;
+    @MockitoBean private DashboardRollupService dashboardRollupService;
+    @MockitoBean private UserPrincipalCache userPrincipalCache;
+    @MockitoBean private OtpRateLimiter otpRateLimiter;
+    @MockitoBean private EmailDispatcher emailDispatcher;
+    @MockitoBean private LocalObjectStorageService localObjectStorageService;
+    @MockitoBean private ImageVariantService imageVariantService;
+    @MockitoBean private UploadGarbageCollector uploadGarbageCollector;
+    @MockitoBean private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+    @MockitoBean private JwtUtil jwtUtil;
+
+    @Test
+    @WithMockUser(roles = "SUB_ADMIN")
+    void subAdminCannotRunTheUploadCollector() throws Exception {
+        mockMvc.perform(post("/api/admin/storage/gc/run").param("dryRun", "false").param("fullPass", "true"))
+                .andExpect(status().isForbidden());
+        verify(uploadGarbageCollector, never()).run(anyBoolean(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminCanRunTheUploadCollector() throws Exception {
+        mockMvc.perform(post("/api/admin/storage/gc/run").param("dryRun", "false"))
+                .andExpect(status().isOk());
+        verify(uploadGarbageCollector).run(false, 16);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kidora.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency samples per endpoint label. Each load worker records into its own instance (no contention on
+ * the hot path); the instances are merged once the run is over.
+ */
+class LatencyReport {
+
+    private final Map<String, Samples> endpoints = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        endpoints.computeIfAbsent(endpoint, k -> new Samples()).add(nanos, ok);
+    }
+
+    void merge(LatencyReport other) {
+        other.endpoints.forEach((endpoint, samples) ->
+                endpoints.computeIfAbsent(endpoint, k -> new Samples()).addAll(samples));
+    }
+
+    // endpoint -> count, errors, throughput and p50/p90/p99/max latency in ms, plus a total row
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Samples total = new Samples();
+        endpoints.forEach((endpoint, samples) -> {
+            summary.put(endpoint, samples.summary(seconds));
+            total.addAll(samples);
+        });
+        summary.put("total", total.summary(seconds));
+        return summary;
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long value, boolean ok) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+            }
+            System.arraycopy(other.nanos, 0, nanos, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        Map<String, Object> summary(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", count);
+            summary.put("errors", errors);
+            summary.put("throughputRps", round(count / seconds));
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p90Ms", percentile(sorted, 0.90));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", sorted.length == 0 ? 0.0 : round(sorted[sorted.length - 1] / 1e6));
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return round(sorted[Math.max(0, index)] / 1e6);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
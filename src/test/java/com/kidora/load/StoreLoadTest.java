@@ -0,0 +1,330 @@
+package com.kidora.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kidora.entity.Product;
+import com.kidora.entity.User;
+import com.kidora.repository.ProductRepository;
+import com.kidora.repository.UserRepository;
+import com.kidora.support.FakeSmtpServer;
+import com.kidora.util.JwtUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load run: the whole app on a random port against an embedded PostgreSQL and a fake SMTP
+ * sink, seeded with a catalog, users and order history, then driven by a mixed workload
+ * (browse/search, cart add/remove, checkout, admin dashboard) from virtual-thread workers.
+ * Logs and writes per-endpoint throughput and p50/p90/p99 latency as JSON.
+ * <p>
+ * mvn test -Pload -Dtest=StoreLoadTest [-Dloadtest.concurrency=32] [-Dloadtest.duration=60]
+ * [-Dloadtest.warmup=10] [-Dloadtest.products=500] [-Dloadtest.virtual-threads=true]
+ * [-Dloadtest.report=target/loadtest-report.json]
+ * <p>
+ * Platform vs. virtual request threads: run once with -Dloadtest.virtual-threads=false and once with =true,
+ * each with its own -Dloadtest.report, and compare the two reports.
+ */
+@Tag("load")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "email.outbox.poll-interval=500",
+        "upload.gc.enabled=false",
+        "logging.level.com.kidora=WARN",
+        "logging.level.com.kidora.load=INFO"
+})
+class StoreLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 10);
+    private static final int PRODUCTS = Integer.getInteger("loadtest.products", 500);
+    private static final int USERS = Math.max(CONCURRENCY, Integer.getInteger("loadtest.users", 100));
+    private static final int SEED_ORDERS = Integer.getInteger("loadtest.seed-orders", 300);
+    private static final String REPORT = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+    private static final String[] CATEGORIES = {"boys", "girls", "baby", "toys", "shoes", "accessories"};
+    private static final String[] MATERIALS = {"cotton", "denim", "linen", "wool", "fleece", "silk"};
+    private static final String[] ITEMS = {"shirt", "dress", "shorts", "jacket", "sneakers", "romper", "hoodie", "cap"};
+    private static final String[] SIZES = {"S", "M", "L"};
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+    private static final FakeSmtpServer SMTP = new FakeSmtpServer();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        Path uploads = Files.createTempDirectory("kidora-load-uploads");
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", SMTP::getPort);
+        registry.add("file.local-upload-dir", uploads::toString);
+        registry.add("spring.threads.virtual.enabled", () -> System.getProperty("loadtest.virtual-threads", "false"));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        SMTP.close();
+        POSTGRES.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private List<Long> productIds;
+    private List<String> userTokens;
+    private String adminToken;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        seedCatalogAndUsers();
+        seedOrderHistory();
+
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(WARMUP_SECONDS).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(DURATION_SECONDS).toNanos();
+        List<Future<LatencyReport>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                String token = userTokens.get(i);
+                workers.add(executor.submit(() -> drive(token, warmupEnd, end)));
+            }
+        }
+        LatencyReport report = new LatencyReport();
+        for (Future<LatencyReport> worker : workers) {
+            report.merge(worker.get());
+        }
+
+        Map<String, Object> summary = report.summary(DURATION_SECONDS);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("concurrency", CONCURRENCY);
+        result.put("durationSeconds", DURATION_SECONDS);
+        result.put("products", PRODUCTS);
+        result.put("users", USERS);
+        result.put("virtualThreads", Boolean.getBoolean("loadtest.virtual-threads"));
+        result.put("emailsDelivered", SMTP.getMessages().size());
+        result.put("endpoints", summary);
+        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        Path reportPath = Paths.get(REPORT);
+        if (reportPath.getParent() != null) {
+            Files.createDirectories(reportPath.getParent());
+        }
+        Files.writeString(reportPath, json);
+        log.info("Load test report written to {}\n{}", reportPath.toAbsolutePath(), json);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> total = (Map<String, Object>) summary.get("total");
+        long requests = ((Number) total.get("requests")).longValue();
+        long errors = ((Number) total.get("errors")).longValue();
+        assertTrue(requests > 0, "no requests completed");
+        assertTrue(errors * 100 <= requests, errors + " of " + requests + " requests failed");
+    }
+
+    // One virtual user: weighted random mix, measured once the warm-up is over
+    private LatencyReport drive(String token, long warmupEnd, long end) {
+        LatencyReport report = new LatencyReport();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            boolean measure = now >= warmupEnd;
+            int roll = random.nextInt(100);
+            if (roll < 30) {
+                call(report, measure, "GET /api/products?page", get("/api/products?page=" + random.nextInt(20) + "&size=20", null));
+            } else if (roll < 40) {
+                call(report, measure, "GET /api/products/{id}", get("/api/products/" + randomProduct(), null));
+            } else if (roll < 45) {
+                call(report, measure, "GET /api/products?category", get("/api/products?category=" + pick(CATEGORIES), null));
+            } else if (roll < 60) {
+                call(report, measure, "GET /api/products?search", get("/api/products?search=" + pick(MATERIALS) + "+" + pick(ITEMS), null));
+            } else if (roll < 85) {
+                long productId = randomProduct();
+                String size = pick(SIZES);
+                call(report, measure, "POST /api/cart", post("/api/cart", token,
+                        Map.of("productId", productId, "quantity", 1 + random.nextInt(3), "selectedSize", size)));
+                call(report, measure, "GET /api/cart", get("/api/cart", token));
+                call(report, measure, "DELETE /api/cart", HttpRequest.newBuilder(uri("/api/cart?productId=" + productId + "&selectedSize=" + size))
+                        .header("Authorization", "Bearer " + token).DELETE().build());
+            } else if (roll < 95) {
+                call(report, measure, "POST /api/orders", post("/api/orders", token, checkout(random)));
+                call(report, measure, "GET /api/orders", get("/api/orders", token));
+            } else {
+                call(report, measure, "GET /api/admin/dashboard/stats", get("/api/admin/dashboard/stats", adminToken));
+                call(report, measure, "GET /api/admin/dashboard/overview", get("/api/admin/dashboard/overview", adminToken));
+            }
+        }
+        return report;
+    }
+
+    private void seedCatalogAndUsers() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setTitle(MATERIALS[i % MATERIALS.length] + " " + ITEMS[i % ITEMS.length] + " " + i);
+            product.setDescription("Soft " + MATERIALS[i % MATERIALS.length] + " " + ITEMS[i % ITEMS.length] + " for everyday play");
+            product.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            product.setPrice(BigDecimal.valueOf(200 + random.nextInt(1800)));
+            product.setDiscount(i % 3 == 0 ? 10 : 0);
+            product.setRating(3.5 + random.nextInt(15) / 10.0);
+            product.setStock(10_000_000);
+            product.setAvailableSizes(List.of(SIZES));
+            product.setMainImage("https://cdn.example.com/products/" + i + ".jpg");
+            products.add(product);
+        }
+        productIds = productRepository.saveAll(products).stream().map(Product::getId).toList();
+
+        List<User> users = new ArrayList<>(USERS + 1);
+        for (int i = 0; i < USERS; i++) {
+            users.add(user("load-user-" + i + "@kidora.test", User.Role.USER));
+        }
+        users.add(user("load-admin@kidora.test", User.Role.ADMIN));
+        userRepository.saveAll(users);
+        userTokens = users.subList(0, USERS).stream()
+                .map(u -> jwtUtil.generateToken(u.getEmail(), u.getRole().name()))
+                .toList();
+        adminToken = jwtUtil.generateToken("load-admin@kidora.test", User.Role.ADMIN.name());
+    }
+
+    // Past orders through the real checkout, so order lists and the dashboard have data to aggregate
+    private void seedOrderHistory() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < SEED_ORDERS; i++) {
+                String token = userTokens.get(i % USERS);
+                executor.submit(() -> call(null, false, "seed", post("/api/orders", token, checkout(ThreadLocalRandom.current()))));
+            }
+        }
+    }
+
+    private Map<String, Object> checkout(ThreadLocalRandom random) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            items.add(Map.of("productId", randomProduct(), "quantity", 1 + random.nextInt(2), "selectedSize", pick(SIZES)));
+        }
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("items", items);
+        order.put("paymentMethod", "COD");
+        order.put("shippingName", "Load Test");
+        order.put("shippingPhone", "01700000000");
+        order.put("shippingAddress", "House 1, Road 1");
+        order.put("shippingCity", "Dhaka");
+        order.put("shippingPostalCode", "1205");
+        return order;
+    }
+
+    private void call(LatencyReport report, boolean measure, String endpoint, HttpRequest request) {
+        long started = System.nanoTime();
+        boolean ok;
+        try {
+            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measure) {
+            report.record(endpoint, System.nanoTime() - started, ok);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String token, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private long randomProduct() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+
+    private static String pick(String[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    private static User user(String email, User.Role role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Load");
+        user.setLastName("Tester");
+        user.setRole(role);
+        user.setEmailVerified(true);
+        return user;
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
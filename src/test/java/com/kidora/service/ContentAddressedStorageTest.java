@@ -0,0 +1,122 @@
+package com.kidora.service;
+
+import com.kidora.support.TestPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Advisory locks and ON CONFLICT need a real Postgres; two connections in the pool, both taken by callers
+@DataJpaTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=3000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ContentAddressedStorageTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry, "storage");
+    }
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService workers;
+    private ExecutorService callers;
+    private LocalObjectStorageService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        workers = Executors.newFixedThreadPool(4);
+        callers = Executors.newFixedThreadPool(2);
+        storage = new LocalObjectStorageService(new LocalFileObjectStorage(root.toString()), true, "", jdbc,
+                transactionManager, workers, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void batchesOfFourFinishWhileTheirCallersHoldThePool() throws Exception {
+        List<MultipartFile> batch = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            batch.add(new MockMultipartFile("f", "p" + i + ".jpg", "image/jpeg", new byte[]{(byte) i, 1, 2}));
+        }
+        List<MultipartFile> reversed = new ArrayList<>(batch.reversed());
+
+        // Each caller sits in a transaction (one connection each, the whole pool) before storing, and they
+        // list the same bytes in opposite order
+        CountDownLatch bothInside = new CountDownLatch(2);
+        CompletableFuture<List<String>> first = CompletableFuture.supplyAsync(() -> storeInTransaction(batch, bothInside), callers);
+        CompletableFuture<List<String>> second = CompletableFuture.supplyAsync(() -> storeInTransaction(reversed, bothInside), callers);
+        List<String> names = first.get(60, TimeUnit.SECONDS);
+        assertEquals(names.reversed(), second.get(60, TimeUnit.SECONDS));
+
+        for (String name : names) {
+            assertTrue(Files.exists(root.resolve(name)));
+            assertEquals(2, jdbc.queryForObject("SELECT ref_count FROM stored_objects WHERE object_key = ?", Integer.class, name));
+        }
+        for (String name : names) {
+            storage.release(name);
+            assertTrue(storage.release(name));
+            assertTrue(Files.notExists(root.resolve(name)));
+        }
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM stored_objects", Integer.class));
+
+        // Once the last reference deleted the objects, storing the same bytes writes them again
+        assertEquals(names, storage.storeFiles(batch));
+        for (String name : names) {
+            assertTrue(Files.exists(root.resolve(name)));
+        }
+    }
+
+    private List<String> storeInTransaction(List<MultipartFile> files, CountDownLatch bothInside) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbc.queryForObject("SELECT 1", Integer.class);
+            bothInside.countDown();
+            try {
+                bothInside.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return storage.storeFiles(files);
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.kidora.service;
+
+import com.kidora.entity.Order;
+import com.kidora.entity.OrderItem;
+import com.kidora.entity.Product;
+import com.kidora.entity.User;
+import com.kidora.support.TestPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// ON CONFLICT upserts and LOCK TABLE need a real Postgres
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DashboardRollupService.class)
+class DashboardRollupServiceTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry, "rollups");
+    }
+
+    @Autowired
+    private DashboardRollupService rollups;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void rebuildMatchesIncrementalUpdatesAcrossCancelAndUndeliver() {
+        User user = new User();
+        user.setEmail("buyer@example.com");
+        em.persist(user);
+        Product shirt = product("Shirt");
+        Product shorts = product("Shorts");
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        LocalDateTime today = LocalDateTime.now();
+
+        Order kept = place(user, yesterday, "100.00", item(shirt, 2), item(shorts, 1));
+        Order cancelled = place(user, yesterday, "40.00", item(shirt, 1));
+        Order reinstated = place(user, today, "75.50", item(shorts, 3));
+        Order undelivered = place(user, today, "20.00", item(shirt, 1));
+        Order onlyCancelled = place(user, today, "15.00", item(product("Socks"), 4));
+
+        change(cancelled, Order.OrderStatus.CANCELLED);
+        change(reinstated, Order.OrderStatus.CANCELLED);
+        change(reinstated, Order.OrderStatus.PROCESSING);
+        change(undelivered, Order.OrderStatus.DELIVERED);
+        change(undelivered, Order.OrderStatus.SHIPPED);
+        change(onlyCancelled, Order.OrderStatus.CANCELLED);
+        change(kept, Order.OrderStatus.PACKED);
+        em.flush();
+
+        List<Map<String, Object>> incrementalDays = days();
+        List<Map<String, Object>> incrementalProducts = products();
+        assertEquals(2, incrementalDays.size());
+        // Cancelled orders still count as orders, but not towards revenue or items sold
+        assertEquals(2L, incrementalDays.get(0).get("order_count"));
+        assertEquals(new BigDecimal("100.00"), incrementalDays.get(0).get("revenue"));
+        assertEquals(3L, incrementalDays.get(0).get("items_sold"));
+        assertEquals(3L, incrementalDays.get(1).get("order_count"));
+        assertEquals(new BigDecimal("95.50"), incrementalDays.get(1).get("revenue"));
+        assertEquals(4L, incrementalDays.get(1).get("items_sold"));
+
+        rollups.rebuild();
+
+        assertEquals(incrementalDays, days());
+        assertEquals(incrementalProducts, products());
+    }
+
+    private Product product(String title) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(100);
+        product.setCategory("kids");
+        product.setMainImage("/uploads/products/" + title + ".jpg");
+        return em.persist(product);
+    }
+
+    private static OrderItem item(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setSelectedSize("M");
+        item.setUnitPrice(BigDecimal.TEN);
+        item.setTotalPrice(BigDecimal.TEN.multiply(BigDecimal.valueOf(quantity)));
+        item.setProductTitle(product.getTitle());
+        return item;
+    }
+
+    private Order place(User user, LocalDateTime createdAt, String total, OrderItem... items) {
+        Order order = new Order();
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setUser(user);
+        order.setSubtotal(new BigDecimal(total));
+        order.setShippingCost(BigDecimal.ZERO);
+        order.setTotalAmount(new BigDecimal(total));
+        order.setPaymentMethod(Order.PaymentMethod.COD);
+        order.setCreatedAt(createdAt);
+        List<OrderItem> orderItems = new ArrayList<>(List.of(items));
+        orderItems.forEach(i -> i.setOrder(order));
+        order.setOrderItems(orderItems);
+        em.persist(order);
+        rollups.recordOrderPlaced(order);
+        return order;
+    }
+
+    private void change(Order order, Order.OrderStatus status) {
+        Order.OrderStatus previous = order.getStatus();
+        order.setStatus(status);
+        rollups.recordStatusChange(order, previous, status);
+    }
+
+    private List<Map<String, Object>> days() {
+        return jdbc.queryForList(
+                "SELECT sales_date, order_count, revenue, items_sold FROM daily_sales_rollup ORDER BY sales_date");
+    }
+
+    // A product sold only in cancelled orders keeps a zero row incrementally; readers skip those
+    private List<Map<String, Object>> products() {
+        return jdbc.queryForList(
+                "SELECT product_id, product_title, quantity FROM product_sales_rollup WHERE quantity <> 0 ORDER BY product_id");
+    }
+}
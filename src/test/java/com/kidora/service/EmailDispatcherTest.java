@@ -0,0 +1,122 @@
+package com.kidora.service;
+
+import com.kidora.entity.EmailOutbox;
+import com.kidora.repository.EmailOutboxRepository;
+import com.kidora.support.FakeSmtpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email.outbox.backoff=0"
+})
+@Import({EmailOutboxService.class, EmailDispatcher.class, EmailDispatcherTest.SmtpConfig.class})
+class EmailDispatcherTest {
+
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    private EmailDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private FakeSmtpServer smtp;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void batchSharesOneConnectionAndFailedEmailIsRetried() {
+        EmailOutbox first = outboxService.enqueue("a@example.com", "noreply@kidora.com", "One", "first body");
+        outboxService.enqueue("b@example.com", "noreply@kidora.com", "Two", "second body");
+        outboxService.enqueue("c@example.com", "noreply@kidora.com", "Three", "third body");
+        smtp.failNextData(1);
+
+        // First batch: all three over one connection, the first rejected with 451; with zero backoff
+        // the drain loop picks it up again as a batch of one on a second connection
+        dispatcher.drain();
+
+        assertEquals(3, smtp.getMessages().size());
+        assertEquals(2, smtp.getConnections());
+        List<EmailOutbox> all = outboxRepository.findAll();
+        assertTrue(all.stream().allMatch(e -> e.getStatus() == EmailOutbox.Status.SENT));
+        EmailOutbox retried = outboxRepository.findById(first.getId()).orElseThrow();
+        assertEquals(2, retried.getAttempts());
+        assertNotNull(retried.getSentAt());
+
+        Map<String, Object> stats = dispatcher.stats();
+        assertEquals(3L, stats.get("sent"));
+        assertEquals(1L, stats.get("failedAttempts"));
+        assertEquals(2L, stats.get("batches"));
+        assertEquals(0L, stats.get("pending"));
+
+        assertEquals(3.0, meterRegistry.get("kidora.email.messages").tag("result", "sent").counter().count());
+        assertEquals(1.0, meterRegistry.get("kidora.email.messages").tag("result", "failed").counter().count());
+        assertEquals(1L, meterRegistry.get("kidora.email.smtp.send").tag("outcome", "failure").timer().count());
+        assertEquals(1L, meterRegistry.get("kidora.email.smtp.send").tag("outcome", "success").timer().count());
+    }
+
+    // Dirties the context so the shared SMTP server and counters start clean for the other test
+    @Test
+    @DirtiesContext
+    void sentOtpMailLeavesNoCodeInTheOutbox() {
+        int before = smtp.getMessages().size();
+        outboxService.enqueue("a@example.com", "noreply@kidora.com", "OTP", "Your OTP is: 123456", true);
+        EmailOutbox welcome = outboxService.enqueue("b@example.com", "noreply@kidora.com", "Welcome", "Hello");
+
+        dispatcher.drain();
+
+        assertEquals(before + 2, smtp.getMessages().size());
+        List<EmailOutbox> kept = outboxRepository.findAll();
+        assertEquals(1, kept.size());
+        assertEquals(welcome.getId(), kept.get(0).getId());
+    }
+
+    @TestConfiguration
+    static class SmtpConfig {
+
+        @Bean(destroyMethod = "close")
+        FakeSmtpServer fakeSmtpServer() {
+            return new FakeSmtpServer();
+        }
+
+        @Bean
+        JavaMailSender javaMailSender(FakeSmtpServer server) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(server.getPort());
+            return sender;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // drain() is called directly; after-commit nudges have nothing to do here
+        @Bean
+        Executor emailExecutor() {
+            return task -> { };
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.kidora.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileServingServiceTest {
+
+    private static final String NAME = "123e4567-e89b-12d3-a456-426614174000.jpg";
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    private FileServingService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.write(root.resolve(NAME), CONTENT);
+        service = new FileServingService(new LocalObjectStorageService(new LocalFileObjectStorage(root.toString()), true, "", null, null, Runnable::run, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = get(null, null);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals(FileServingService.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertEquals("image/jpeg", response.getContentType());
+    }
+
+    @Test
+    void revalidationWithMatchingETagIsNotModified() throws Exception {
+        String etag = get(null, null).getHeader("ETag");
+
+        MockHttpServletResponse response = get("If-None-Match", etag);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesSingleByteRange() throws Exception {
+        MockHttpServletResponse response = get("Range", "bytes=4-7");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 4-7/16", response.getHeader("Content-Range"));
+        assertEquals("4567", response.getContentAsString());
+
+        assertEquals("cdef", get("Range", "bytes=-4").getContentAsString());
+        assertEquals(416, get("Range", "bytes=16-").getStatus());
+    }
+
+    @Test
+    void parsesRanges() {
+        assertArrayEquals(new long[]{0, 9}, FileServingService.parseRange("bytes=0-", 10));
+        assertArrayEquals(new long[]{5, 9}, FileServingService.parseRange("bytes=5-100", 10));
+        assertArrayEquals(new long[0], FileServingService.parseRange("bytes=0-1,4-5", 10));
+        assertArrayEquals(new long[0], FileServingService.parseRange("bytes=5-3", 10));
+        assertNull(FileServingService.parseRange("bytes=10-", 10));
+        assertNull(FileServingService.parseRange("bytes=-0", 10));
+    }
+
+    private MockHttpServletResponse get(String header, String value) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/products/" + NAME);
+        if (header != null) {
+            request.addHeader(header, value);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(NAME, request, response);
+        return response;
+    }
+}
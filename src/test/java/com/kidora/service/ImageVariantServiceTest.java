@@ -0,0 +1,72 @@
+package com.kidora.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ImageVariantServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080/uploads/products/";
+
+    @TempDir
+    Path root;
+
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalObjectStorageService storage = new LocalObjectStorageService(new LocalFileObjectStorage(root.toString()), true, "", null, null, Runnable::run, new SimpleMeterRegistry());
+        service = new ImageVariantService(storage, null, null, Runnable::run, 50_000_000L, 0.8f);
+    }
+
+    @Test
+    void rendersEveryVariantNarrowerThanTheOriginal() throws Exception {
+        String name = "123e4567-e89b-12d3-a456-426614174000.png";
+        write(name, 2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        Map<String, String> urls = service.render(BASE_URL + name);
+
+        assertEquals(List.of("thumb", "card", "detail"), List.copyOf(urls.keySet()));
+        String thumbUrl = urls.get("thumb");
+        assertEquals(BASE_URL + "123e4567-e89b-12d3-a456-426614174000@thumb.jpg", thumbUrl);
+        BufferedImage thumb = ImageIO.read(root.resolve(thumbUrl.substring(BASE_URL.length())).toFile());
+        assertNotNull(thumb);
+        assertEquals(160, thumb.getWidth());
+        assertEquals(80, thumb.getHeight());
+
+        // Second run finds the files and writes nothing
+        service.render(BASE_URL + name);
+        assertEquals(3L, service.stats().get("rendered"));
+        assertEquals(3L, service.stats().get("reused"));
+    }
+
+    @Test
+    void neverUpscalesAndKeepsTransparencyAsPng() throws Exception {
+        String name = "aaaaaaaa-e89b-12d3-a456-426614174000.png";
+        write(name, 300, 300, BufferedImage.TYPE_INT_ARGB);
+
+        Map<String, String> urls = service.render(BASE_URL + name);
+
+        assertEquals(Map.of("thumb", BASE_URL + "aaaaaaaa-e89b-12d3-a456-426614174000@thumb.png"), urls);
+    }
+
+    private void write(String name, int width, int height, int type) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x += 7) {
+            for (int y = 0; y < height; y += 5) {
+                image.setRGB(x, y, 0xff000000 | (x * 31 + y * 17));
+            }
+        }
+        ImageIO.write(image, "png", root.resolve(name).toFile());
+    }
+}
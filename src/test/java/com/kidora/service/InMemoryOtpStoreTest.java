@@ -0,0 +1,70 @@
+package com.kidora.service;
+
+import com.kidora.config.OtpStoreConfig;
+import com.kidora.entity.Otp;
+import com.kidora.repository.OtpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:otps;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OtpStoreConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InMemoryOtpStoreTest {
+
+    @Autowired
+    private JpaOtpStore database;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Test
+    void aCodeVerifiesOnceAcrossNodes() throws Exception {
+        InMemoryOtpStore nodeA = new InMemoryOtpStore(4, 100, 1000, database, true);
+        InMemoryOtpStore nodeB = new InMemoryOtpStore(4, 100, 1000, database, true);
+        try {
+            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+
+            // Issued on A, used through B's database fallback: A's in-memory copy must not verify again
+            nodeA.save("a@example.com", Otp.OtpType.LOGIN, "111111", expiresAt);
+            awaitRow("a@example.com");
+            assertTrue(nodeB.consume("a@example.com", "111111"));
+            assertFalse(nodeA.consume("a@example.com", "111111"));
+
+            // Issued and used on A straight away: the row is written before A's verification, B then finds it used
+            nodeA.save("b@example.com", Otp.OtpType.LOGIN, "222222", expiresAt);
+            assertTrue(nodeA.consume("b@example.com", "222222"));
+            assertFalse(nodeB.consume("b@example.com", "222222"));
+        } finally {
+            nodeA.shutdown();
+            nodeB.shutdown();
+        }
+    }
+
+    // B only knows codes issued on A once A's write-behind has replayed them
+    private void awaitRow(String email) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (otpRepository.findAll().stream().noneMatch(o -> o.getEmail().equals(email))) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("write-behind never reached the database");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
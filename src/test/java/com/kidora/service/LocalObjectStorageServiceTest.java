@@ -0,0 +1,84 @@
+package com.kidora.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalObjectStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    private ExecutorService executor;
+    private LocalObjectStorageService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        // UUID mode: the batch mechanics are the same and no stored_objects table is needed
+        storage = new LocalObjectStorageService(new LocalFileObjectStorage(root.toString()), false, "", null, null, executor, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void batchIsStoredInInputOrder() throws Exception {
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("f", "a.jpg", "image/jpeg", new byte[]{1}),
+                new MockMultipartFile("f", "b.png", "image/png", new byte[]{2, 2}),
+                new MockMultipartFile("f", "c.gif", "image/gif", new byte[]{3, 3, 3}));
+
+        List<String> names = storage.storeFiles(files);
+
+        assertEquals(3, names.size());
+        assertArrayEquals(new byte[]{1}, Files.readAllBytes(root.resolve(names.get(0))));
+        assertArrayEquals(new byte[]{2, 2}, Files.readAllBytes(root.resolve(names.get(1))));
+        assertArrayEquals(new byte[]{3, 3, 3}, Files.readAllBytes(root.resolve(names.get(2))));
+        assertEquals(0, tempFiles());
+    }
+
+    @Test
+    void failedPartRollsBackTheWholeBatch() throws Exception {
+        MultipartFile broken = new MockMultipartFile("f", "broken.jpg", "image/jpeg", new byte[]{9}) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("f", "a.jpg", "image/jpeg", new byte[]{1}),
+                broken,
+                new MockMultipartFile("f", "c.jpg", "image/jpeg", new byte[]{3}));
+
+        assertThrows(RuntimeException.class, () -> storage.storeFiles(files));
+
+        assertEquals(List.of(), storage.listAllFiles());
+        assertEquals(0, tempFiles());
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> tmp = Files.list(root.resolve(".tmp"))) {
+            return tmp.count();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.kidora.service;
+
+import com.kidora.entity.Order;
+import com.kidora.entity.OrderItem;
+import com.kidora.entity.Product;
+import com.kidora.entity.ReturnRequest;
+import com.kidora.entity.User;
+import com.kidora.repository.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(OrderReadService.class)
+class OrderReadServiceTest {
+
+    private static final int ORDERS = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderReadService orderReadService;
+
+    @Test
+    void pageOfOrdersIsAssembledInFixedNumberOfStatements() {
+        seed();
+        Statistics stats = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        Page<Order> page = orderRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, ORDERS));
+        Map<Long, ReturnRequest> returns = orderReadService.prefetch(page.getContent());
+
+        // Touch everything the order response converters touch
+        int items = 0;
+        int photos = 0;
+        for (Order order : page.getContent()) {
+            for (OrderItem item : order.getOrderItems()) {
+                assertNotNull(item.getProduct().getId());
+                items++;
+            }
+            ReturnRequest rr = returns.get(order.getId());
+            if (rr != null) {
+                photos += rr.getPhotoUrls().size();
+            }
+        }
+
+        assertEquals(ORDERS * ITEMS_PER_ORDER, items);
+        assertEquals(5, returns.size());
+        assertEquals(10, photos);
+        // page + count + items + return requests, independent of the page size
+        long statements = stats.getPrepareStatementCount();
+        assertTrue(statements <= 4, "Expected at most 4 statements but was " + statements);
+    }
+
+    @Test
+    void statusHistogramsAreZeroFilled() {
+        seed();
+        Map<String, Long> orders = orderReadService.orderStatusHistogram();
+        Map<String, Long> returns = orderReadService.returnStatusHistogram();
+
+        assertEquals(Order.OrderStatus.values().length, orders.size());
+        assertEquals((long) ORDERS, orders.get(Order.OrderStatus.PROCESSING.name()));
+        assertEquals(0L, orders.get(Order.OrderStatus.DELIVERED.name()));
+        assertEquals(5L, returns.get(ReturnRequest.Status.PENDING.name()));
+        assertEquals(0L, returns.get(ReturnRequest.Status.APPROVED.name()));
+    }
+
+    private void seed() {
+        User user = new User();
+        user.setEmail("reader@kidora.test");
+        user.setEmailVerified(true);
+        em.persist(user);
+
+        List<Product> products = new ArrayList<>();
+        for (int p = 0; p < ITEMS_PER_ORDER; p++) {
+            Product product = new Product();
+            product.setTitle("Product " + p);
+            product.setPrice(BigDecimal.valueOf(100));
+            product.setStock(50);
+            product.setCategory("kids");
+            product.setMainImage("/uploads/products/p" + p + ".jpg");
+            em.persist(product);
+            products.add(product);
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORD-TEST-" + i);
+            order.setUser(user);
+            order.setSubtotal(BigDecimal.valueOf(300));
+            order.setShippingCost(BigDecimal.valueOf(100));
+            order.setTotalAmount(BigDecimal.valueOf(400));
+            order.setPaymentMethod(Order.PaymentMethod.COD);
+            em.persist(order);
+            for (Product product : products) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(1);
+                item.setSelectedSize("M");
+                item.setUnitPrice(product.getPrice());
+                item.setTotalPrice(product.getPrice());
+                item.setProductTitle(product.getTitle());
+                em.persist(item);
+            }
+            if (i % 4 == 0) {
+                ReturnRequest rr = new ReturnRequest();
+                rr.setOrder(order);
+                rr.setUser(user);
+                rr.setReason("Wrong size");
+                rr.setPhotoUrls(List.of("/uploads/products/r" + i + "a.jpg", "/uploads/products/r" + i + "b.jpg"));
+                em.persist(rr);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package com.kidora.service;
+
+import com.kidora.config.ProductSearchIndexInitializer;
+import com.kidora.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:products;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductStockService.class, ProductCatalogCache.class, ProductSearchIndexInitializer.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void adminEditKeepsSalesMadeWhileItWasOpen() {
+        Long productId = insertProduct(10);
+        productStockService.reserve(Map.of(productId, 1));
+
+        Product saved = new TransactionTemplate(transactionManager).execute(status -> {
+            Product loaded = productService.getProductForUpdate(productId);
+            // A checkout and a delivery commit between the admin's read and save
+            CompletableFuture.runAsync(() -> {
+                productStockService.decrement(Map.of(productId, 2));
+                productStockService.consume(Map.of(productId, 1));
+            }).orTimeout(30, TimeUnit.SECONDS).join();
+
+            Product details = new Product();
+            details.setTitle("Renamed tee");
+            details.setPrice(loaded.getPrice());
+            details.setCategory(loaded.getCategory());
+            details.setMainImage(loaded.getMainImage());
+            details.setStock(15);
+            return productService.updateProduct(productId, details);
+        });
+
+        // 10 - 2 sold - 1 delivered + 5 restocked by the admin
+        assertEquals(12, stock(productId));
+        assertEquals(12, saved.getStock());
+        assertEquals(0, jdbc.queryForObject("SELECT reserved_stock FROM products WHERE id = ?", Integer.class, productId));
+        assertEquals("Renamed tee", jdbc.queryForObject("SELECT title FROM products WHERE id = ?", String.class, productId));
+    }
+
+    private Long insertProduct(int stock) {
+        jdbc.update("INSERT INTO products (title, price, stock, reserved_stock, category, main_image, active, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, 0, ?, ?, TRUE, ?, ?)",
+                "Tee", new BigDecimal("499.00"), stock, "tops", "/uploads/products/tee.jpg",
+                LocalDateTime.now(), LocalDateTime.now());
+        return jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class);
+    }
+
+    private int stock(Long productId) {
+        return jdbc.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.kidora.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against a real S3-compatible server, e.g. `docker compose up minio` and S3_TEST_ENDPOINT=http://localhost:9000
+@EnabledIfEnvironmentVariable(named = "S3_TEST_ENDPOINT", matches = ".+")
+class S3ObjectStorageTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private S3Client client;
+    private S3ObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        client = S3Client.builder()
+                .endpointOverride(URI.create(System.getenv("S3_TEST_ENDPOINT")))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                        env("S3_TEST_ACCESS_KEY", "kidora"), env("S3_TEST_SECRET_KEY", "kidora-secret"))))
+                .build();
+        storage = new S3ObjectStorage(client, env("S3_TEST_BUCKET", "kidora-test"),
+                "test-" + UUID.randomUUID() + "/", PART_SIZE);
+        storage.createBucketIfMissing();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        List<String> keys = new ArrayList<>();
+        storage.list("", true, info -> keys.add(info.key()));
+        for (String key : keys) {
+            storage.delete(key);
+        }
+        client.close();
+    }
+
+    @Test
+    void storesReadsRangesListsAndDeletes() throws Exception {
+        byte[] small = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        storage.put("legacy.jpg", small, "image/jpeg");
+        storage.put("ab/cd/object.jpg", small, "image/jpeg");
+
+        assertEquals(16, storage.stat("legacy.jpg").size());
+        assertNull(storage.stat("missing.jpg"));
+        try (InputStream in = storage.read("legacy.jpg", 4, 4)) {
+            assertEquals("4567", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+
+        List<String> topLevel = new ArrayList<>();
+        storage.list("", false, info -> topLevel.add(info.key()));
+        assertEquals(List.of("legacy.jpg"), topLevel);
+        List<String> shard = new ArrayList<>();
+        storage.list("ab/", true, info -> shard.add(info.key()));
+        assertEquals(List.of("ab/cd/object.jpg"), shard);
+
+        assertTrue(storage.delete("legacy.jpg"));
+        assertNull(storage.stat("legacy.jpg"));
+    }
+
+    @Test
+    void streamsLargeUploadsAsMultipart() throws Exception {
+        byte[] large = new byte[PART_SIZE * 2 + 1234];
+        new Random(42).nextBytes(large);
+
+        ObjectStorage.Upload upload = storage.stage("ef/01/large.png", new ByteArrayInputStream(large), large.length, "image/png");
+        storage.commit(List.of(upload));
+
+        assertEquals(large.length, storage.stat("ef/01/large.png").size());
+        try (InputStream in = storage.read("ef/01/large.png", 0, large.length)) {
+            assertArrayEquals(large, in.readAllBytes());
+        }
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
@@ -0,0 +1,117 @@
+package com.kidora.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7, System::currentTimeMillis);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> f : futures) {
+                long[] ids = f.get(60, TimeUnit.SECONDS);
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "ids must increase within a thread");
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertNotEquals(all[i - 1], all[i], "duplicate id");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sameMillisecondAndClockStepBackStayUnique() {
+        long[] now = {SnowflakeOrderNumberGenerator.EPOCH_MILLIS + 1_000};
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1, () -> now[0]);
+        long previous = -1;
+        // Exhaust more than one millisecond's sequence without the clock moving, then step it back
+        for (int i = 0; i < 3 * (SnowflakeOrderNumberGenerator.MAX_SEQUENCE + 1); i++) {
+            if (i == 5_000) now[0] -= 500;
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void restartBehindBorrowedMillisecondsContinuesAboveStoredNumbers() {
+        long[] now = {SnowflakeOrderNumberGenerator.EPOCH_MILLIS + 1_000};
+        SnowflakeOrderNumberGenerator before = new SnowflakeOrderNumberGenerator(1, () -> now[0]);
+        // A burst borrows a few milliseconds ahead of a clock that never moves
+        long highest = 0;
+        for (int i = 0; i < 4 * (SnowflakeOrderNumberGenerator.MAX_SEQUENCE + 1); i++) {
+            highest = before.nextId();
+        }
+
+        // Restarted on the same node with the clock also stepped back
+        now[0] -= 200;
+        SnowflakeOrderNumberGenerator after = new SnowflakeOrderNumberGenerator(1, () -> now[0]);
+        String stored = SnowflakeOrderNumberGenerator.format(highest);
+        after.advancePast(SnowflakeOrderNumberGenerator.parse(stored));
+        assertTrue(SnowflakeOrderNumberGenerator.format(after.nextId()).compareTo(stored) > 0);
+        // Seeding never moves a generator that is already further on back
+        after.advancePast(0);
+        assertTrue(after.nextId() > highest);
+    }
+
+    @Test
+    void formattedNumbersAreFixedWidthAndSortLikeIds() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1023, System::currentTimeMillis);
+        long a = generator.nextId();
+        long b = generator.nextId();
+        String fa = SnowflakeOrderNumberGenerator.format(a);
+        String fb = SnowflakeOrderNumberGenerator.format(b);
+        assertEquals(17, fa.length());
+        assertTrue(fa.startsWith("ORD-"));
+        assertTrue(fa.compareTo(fb) < 0);
+        assertEquals("ORD-0000000000000", SnowflakeOrderNumberGenerator.format(0));
+        assertEquals(b, SnowflakeOrderNumberGenerator.parse(fb));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeOrderNumberGenerator.parse("ORD-1760000000O00"));
+    }
+
+    @Test
+    void missingNodeIdIsRefusedWhenSeveralInstancesMayRun() {
+        assertThrows(IllegalStateException.class, () -> new SnowflakeOrderNumberGenerator(-1, false));
+        assertEquals(0, SnowflakeOrderNumberGenerator.defaultNodeId(true));
+    }
+}
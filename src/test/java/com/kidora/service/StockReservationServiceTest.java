@@ -0,0 +1,123 @@
+package com.kidora.service;
+
+import com.kidora.entity.OrderItem;
+import com.kidora.entity.Product;
+import com.kidora.entity.StockReservation;
+import com.kidora.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservations;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockReservationService.class, ProductStockService.class, ProductCatalogCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceTest {
+
+    private static final int STOCK = 10;
+    private static final int BUYERS = 64;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        Long productId = insertProduct();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                long orderId = 1000L + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        reservationService.reserve(orderId, List.of(item(productId, 1)));
+                        reserved.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(STOCK, reservedStock(productId));
+        assertEquals(STOCK, reservationRepository.count());
+
+        // Cancelling one order frees exactly its unit, delivering another deducts real stock
+        List<StockReservation> holds = reservationRepository.findAll();
+        assertTrue(reservationService.release(holds.get(0).getOrderId()));
+        assertFalse(reservationService.release(holds.get(0).getOrderId()));
+        assertEquals(STOCK - 1, reservedStock(productId));
+        assertTrue(reservationService.consume(holds.get(1).getOrderId()));
+        assertEquals(STOCK - 2, reservedStock(productId));
+        assertEquals(STOCK - 1, jdbc.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId));
+    }
+
+    private Long insertProduct() {
+        jdbc.update("DELETE FROM stock_reservations");
+        jdbc.update("INSERT INTO products (title, price, stock, reserved_stock, category, main_image, active, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, 0, ?, ?, TRUE, ?, ?)",
+                "Flash sale tee", new BigDecimal("499.00"), STOCK, "tops", "/uploads/products/tee.jpg",
+                LocalDateTime.now(), LocalDateTime.now());
+        return jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class);
+    }
+
+    private int reservedStock(Long productId) {
+        return jdbc.queryForObject("SELECT reserved_stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private static OrderItem item(Long productId, int quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setProductTitle("Flash sale tee");
+        return item;
+    }
+}
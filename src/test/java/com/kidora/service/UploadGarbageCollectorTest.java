@@ -0,0 +1,80 @@
+package com.kidora.service;
+
+import com.kidora.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UploadGarbageCollectorTest {
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void deletesOnlyOldUnreferencedFiles() throws Exception {
+        Path referenced = file("11111111-1111-1111-1111-111111111111.jpg", Duration.ofDays(10));
+        Path orphan = file("22222222-2222-2222-2222-222222222222.jpg", Duration.ofDays(10));
+        Path young = file("33333333-3333-3333-3333-333333333333.jpg", Duration.ZERO);
+        Path orphanVariant = file("ab/cd/" + "a".repeat(64) + "@thumb.jpg", Duration.ofDays(10));
+        Path video = file("44444444-4444-4444-4444-444444444444.mp4", Duration.ofDays(10));
+
+        Product product = new Product();
+        product.setTitle("Shirt");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(1);
+        product.setCategory("kids");
+        product.setMainImage("http://localhost:8080/uploads/products/" + referenced.getFileName());
+        product.setVideoUrl("/uploads/products/" + video.getFileName());
+        em.persistAndFlush(product);
+
+        LocalObjectStorageService storage = new LocalObjectStorageService(new LocalFileObjectStorage(root.toString()), true, "", jdbc, transactionManager, Runnable::run, new SimpleMeterRegistry());
+        UploadGarbageCollector gc = new UploadGarbageCollector(storage, jdbc, true, true, Duration.ofDays(3).toMillis(), 16);
+
+        Map<String, Object> dryRun = gc.run(true, Integer.MAX_VALUE);
+        assertEquals(2L, dryRun.get("wouldDelete"));
+        assertTrue(Files.exists(orphan));
+
+        Map<String, Object> result = gc.run(false, Integer.MAX_VALUE);
+        assertEquals(2L, result.get("deleted"));
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(young));
+        assertTrue(Files.exists(video));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(orphanVariant));
+    }
+
+    private Path file(String name, Duration age) throws Exception {
+        Path path = root.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(age)));
+        return path;
+    }
+}
@@ -0,0 +1,43 @@
+package com.kidora.service;
+
+import com.kidora.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class UserPrincipalCacheTest {
+
+    @Test
+    void hitsHandOutCopiesThatDoNotLeakChanges() {
+        UserPrincipalCache cache = new UserPrincipalCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        User stored = new User();
+        stored.setId(7L);
+        stored.setEmail("a@example.com");
+        stored.setFirstName("Ann");
+        stored.setRole(User.Role.SUB_ADMIN);
+
+        User first = cache.get("a@example.com", () -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+        first.setFirstName("Mallory");
+        first.setRole(User.Role.ADMIN);
+        User second = cache.get("a@example.com", () -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("Ann", second.getFirstName());
+        assertEquals(User.Role.SUB_ADMIN, second.getRole());
+        assertEquals(7L, second.getId());
+        // Not email-verified, so the copy is no more enabled than the row
+        assertFalse(second.isEnabled());
+    }
+}
@@ -0,0 +1,44 @@
+package com.kidora.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    void attributesSynchronizedBlockingToTheCallingSite() throws Exception {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(true, 10);
+        monitor.start();
+        try {
+            Object lock = new Object();
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(100);
+                }
+            }).join();
+
+            // JFR streams events in roughly one-second chunks; the site is recorded just after the event count
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (((List<?>) monitor.stats().get("sites")).isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertEquals(1L, monitor.stats().get("events"));
+            assertTrue(monitor.stats().get("sites").toString().contains(VirtualThreadPinningMonitorTest.class.getName()));
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.kidora.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void everyKeyFiresOnItsOwnTickAcrossLevels() {
+        long start = 1_000_000L;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1, start);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Spread over the first three levels (up to 64^3 ticks ahead)
+            long deadline = start + 1 + random.nextInt(262_144);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = start + 1; now <= start + 262_145; now += 1 + random.nextInt(50)) {
+            long tick = now;
+            wheel.advance(now, key -> firedAt.put(key, tick));
+        }
+        wheel.advance(start + 262_145, key -> firedAt.put(key, start + 262_145));
+
+        assertEquals(deadlines.size(), firedAt.size());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((key, deadline) -> {
+            long fired = firedAt.get(key);
+            // Never early; late only by the gap between two advance() calls
+            assertTrue(fired >= deadline, "key " + key + " fired early");
+            assertTrue(fired - deadline <= 50, "key " + key + " fired late by " + (fired - deadline));
+        });
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 10_000);
+        wheel.schedule("late", 5_000);
+        Map<String, Boolean> fired = new HashMap<>();
+        wheel.advance(10_999, key -> fired.put(key, true));
+        assertTrue(fired.isEmpty());
+        wheel.advance(11_000, key -> fired.put(key, true));
+        assertEquals(Map.of("late", true), fired);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kidora.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void burstThenRefillAtConfiguredRate() {
+        long[] now = {0};
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test", 5, Duration.ofSeconds(10), 100, () -> now[0]);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("a@kidora.test"));
+        }
+        long wait = limiter.tryAcquire("a@kidora.test");
+        assertEquals(TimeUnit.SECONDS.toNanos(2), wait);
+        // Other keys are independent
+        assertEquals(0, limiter.tryAcquire("b@kidora.test"));
+
+        now[0] += TimeUnit.SECONDS.toNanos(2);
+        assertEquals(0, limiter.tryAcquire("a@kidora.test"));
+        assertTrue(limiter.tryAcquire("a@kidora.test") > 0);
+        assertEquals(2L, limiter.rejectedCount());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test", 100, Duration.ofHours(1), 10);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            pool.execute(() -> {
+                if (limiter.tryAcquire("10.0.0.1") == 0) allowed.incrementAndGet();
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void keySpaceStaysBounded() {
+        long[] now = {0};
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test", 1, Duration.ofMinutes(1), 3, () -> now[0]);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+        assertEquals(3, limiter.stats().get("keys"));
+        assertTrue((long) limiter.stats().get("overflowed") > 0);
+
+        now[0] += TimeUnit.MINUTES.toNanos(2);
+        limiter.sweep();
+        assertEquals(0, limiter.stats().get("keys"));
+    }
+}